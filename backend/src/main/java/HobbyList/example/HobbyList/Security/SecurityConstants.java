@@ -19,6 +19,7 @@ public final class SecurityConstants {
             "/api/milestones/all",
             "/api/users/discover",
             "/api/users/search",
+            "/api/users/by-hobby",
             
     };
 
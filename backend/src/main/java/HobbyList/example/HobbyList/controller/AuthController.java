@@ -4,6 +4,7 @@ import HobbyList.example.HobbyList.model.User;
 import HobbyList.example.HobbyList.model.VerificationToken;
 import HobbyList.example.HobbyList.dto.LoginRequest;
 import HobbyList.example.HobbyList.dto.SignupRequest;
+import HobbyList.example.HobbyList.dto.UserUpdatedEvent;
 import HobbyList.example.HobbyList.dto.VerificationEmailEvent;
 import HobbyList.example.HobbyList.repository.TokenRepository;
 import HobbyList.example.HobbyList.repository.UserRepository;
@@ -61,6 +62,7 @@ public class AuthController {
         newUser.setPassword(passwordEncoder.encode(request.password()));
         newUser.setRole("ROLE_USER");
         userRepository.save(newUser);
+        eventPublisher.publishEvent(new UserUpdatedEvent(newUser));
         eventPublisher.publishEvent(new VerificationEmailEvent(newUser, "EMAIL_VERIFICATION"));
         return ResponseEntity.ok(Map.of("message", "User registered successfully"));
     }
@@ -85,6 +87,7 @@ public class AuthController {
         boolean newAcct = user.isNewAccount();
         user.setOld();
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserUpdatedEvent(user));
         String token = jwtService.generateToken(user);
         return ResponseEntity.ok(Map.of("token", token, "newAccount", newAcct));
     }
@@ -104,6 +107,7 @@ public class AuthController {
         }
         user.setActive(true);
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserUpdatedEvent(user));
 
         tokenRepository.delete(verificationToken.get());
         return ResponseEntity.ok(Map.of("message", "Account verified successfully"));
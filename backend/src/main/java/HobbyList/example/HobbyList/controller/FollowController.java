@@ -1,11 +1,12 @@
 package HobbyList.example.HobbyList.controller;
 
+import HobbyList.example.HobbyList.dto.CursorPage;
 import HobbyList.example.HobbyList.dto.UserSummaryDto;
 import HobbyList.example.HobbyList.model.User;
 import HobbyList.example.HobbyList.repository.UserRepository;
 import HobbyList.example.HobbyList.service.FollowService;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -24,8 +25,8 @@ public class FollowController {
     }
 
     @PostMapping("/{id}/follow")
-    public ResponseEntity<String> followUser(@PathVariable Long id, Authentication authentication) {
-        User requester = userRepository.findByEmail(authentication.getName()).orElseThrow();
+    public ResponseEntity<String> followUser(@PathVariable Long id, @AuthenticationPrincipal User principal) {
+        User requester = userRepository.findById(principal.getId()).orElseThrow();
         User target = userRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("User not found"));
 
         try {
@@ -37,8 +38,8 @@ public class FollowController {
     }
 
     @PostMapping("/{id}/unfollow")
-    public ResponseEntity<String> unfollowUser(@PathVariable Long id, Authentication authentication) {
-        User requester = userRepository.findByEmail(authentication.getName()).orElseThrow();
+    public ResponseEntity<String> unfollowUser(@PathVariable Long id, @AuthenticationPrincipal User principal) {
+        User requester = userRepository.findById(principal.getId()).orElseThrow();
         User target = userRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("User not found"));
 
         followService.unfollowUser(requester, target);
@@ -46,28 +47,31 @@ public class FollowController {
     }
 
     @GetMapping("/{id}/followers")
-    public ResponseEntity<List<UserSummaryDto>> getFollowers(@PathVariable Long id, Authentication authentication) {
+    public ResponseEntity<CursorPage<UserSummaryDto>> getFollowers(@PathVariable Long id,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer limit,
+            @AuthenticationPrincipal User currentUser) {
         User targetUser = userRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("User not found"));
-        User currentUser = userRepository.findByEmail(authentication.getName()).orElseThrow();
-        return ResponseEntity.ok(followService.getFollowers(targetUser, currentUser));
+        return ResponseEntity.ok(followService.getFollowers(targetUser, currentUser, cursor, limit));
     }
 
     @GetMapping("/{id}/following")
-    public ResponseEntity<List<UserSummaryDto>> getFollowing(@PathVariable Long id, Authentication authentication) {
+    public ResponseEntity<CursorPage<UserSummaryDto>> getFollowing(@PathVariable Long id,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer limit,
+            @AuthenticationPrincipal User currentUser) {
         User targetUser = userRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("User not found"));
-        User currentUser = userRepository.findByEmail(authentication.getName()).orElseThrow();
-        return ResponseEntity.ok(followService.getFollowing(targetUser, currentUser));
+        return ResponseEntity.ok(followService.getFollowing(targetUser, currentUser, cursor, limit));
     }
 
     @GetMapping("/requests")
-    public ResponseEntity<List<UserSummaryDto>> getPendingRequests(Authentication authentication) {
-        User user = userRepository.findByEmail(authentication.getName()).orElseThrow();
+    public ResponseEntity<List<UserSummaryDto>> getPendingRequests(@AuthenticationPrincipal User user) {
         return ResponseEntity.ok(followService.getPendingRequests(user));
     }
 
     @PostMapping("/requests/{requestId}/accept")
-    public ResponseEntity<String> acceptRequest(@PathVariable Long requestId, Authentication authentication) {
-        User targetUser = userRepository.findByEmail(authentication.getName()).orElseThrow();
+    public ResponseEntity<String> acceptRequest(@PathVariable Long requestId, @AuthenticationPrincipal User principal) {
+        User targetUser = userRepository.findById(principal.getId()).orElseThrow();
         User requester = userRepository.findById(requestId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
         try {
@@ -79,8 +83,7 @@ public class FollowController {
     }
 
     @PostMapping("/requests/{requestId}/reject")
-    public ResponseEntity<String> rejectRequest(@PathVariable Long requestId, Authentication authentication) {
-        User targetUser = userRepository.findByEmail(authentication.getName()).orElseThrow();
+    public ResponseEntity<String> rejectRequest(@PathVariable Long requestId, @AuthenticationPrincipal User targetUser) {
         User requester = userRepository.findById(requestId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
         try {
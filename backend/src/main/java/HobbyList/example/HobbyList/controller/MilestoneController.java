@@ -4,21 +4,24 @@ import HobbyList.example.HobbyList.model.Milestone;
 import HobbyList.example.HobbyList.model.User;
 import HobbyList.example.HobbyList.repository.MilestoneRepository;
 import HobbyList.example.HobbyList.repository.PhotoRepository;
-import HobbyList.example.HobbyList.repository.UserRepository;
 import HobbyList.example.HobbyList.service.HobbyService;
 import HobbyList.example.HobbyList.service.MilestoneService;
+import HobbyList.example.HobbyList.dto.MilestoneBatchOperation;
+import HobbyList.example.HobbyList.dto.MilestoneBatchResult;
 import HobbyList.example.HobbyList.dto.MilestoneDto;
+import HobbyList.example.HobbyList.dto.MilestoneQuery;
 import HobbyList.example.HobbyList.mapper.MilestoneMapper;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/milestones")
@@ -26,22 +29,19 @@ import java.util.stream.Collectors;
 public class MilestoneController {
 
     private final MilestoneRepository milestoneRepository;
-    private final UserRepository userRepository;
     private final PhotoRepository photoRepository;
     private final MilestoneMapper milestoneMapper;
     private final MilestoneService milestoneService;
     private final HobbyService hobbyService;
 
-    private final int MAX_DEPTH = 5;
+    private final int MAX_DEPTH = MilestoneService.MAX_DEPTH;
 
     public MilestoneController(MilestoneRepository milestoneRepository,
-            UserRepository userRepository,
             PhotoRepository photoRepository,
             MilestoneMapper milestoneMapper,
             MilestoneService milestoneService,
             HobbyService hobbyService) {
         this.milestoneRepository = milestoneRepository;
-        this.userRepository = userRepository;
         this.photoRepository = photoRepository;
         this.milestoneMapper = milestoneMapper;
         this.milestoneService = milestoneService;
@@ -52,28 +52,14 @@ public class MilestoneController {
     // Retrieve all parent (root) milestones for the authenticated user.
     // ---------------------------
     @GetMapping
-    public ResponseEntity<?> getParentMilestones(Authentication authentication) {
-        User user = userRepository.findByEmail(authentication.getName()).orElse(null);
+    public ResponseEntity<?> getParentMilestones(@AuthenticationPrincipal User user,
+            @RequestParam(required = false) String hobbyTag) {
         if (user == null)
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
 
-        // If you want a hobby filter, implement a repository method. For now we return
-        // all parent roots.
-        List<Milestone> roots = milestoneRepository.findByUserIdAndParentIsNull(user.getId());
-        List<MilestoneDto> dtoRoots = roots.stream()
-                .map(milestoneService::toDto)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(dtoRoots);
+        return ResponseEntity.ok(milestoneService.getMilestoneTrees(user.getId(), hobbyTag));
     }
 
-    // ---------------------------
-    // Create a new task. Optional parent id can be provided.
-    // If parent provided, ensure parent depth < 5.
-    //
-    // Request body example (JSON):
-    // { "task": "Practice chords", "dueDate": "2025-11-01T15:00:00Z",
-    // "isCompleted": false, "parentId": 12 }
-    // ---------------------------
     // ---------------------------
     // Create a new task. Optional parent id can be provided.
     // If parent provided, ensure parent depth < 5.
@@ -83,9 +69,8 @@ public class MilestoneController {
     // "isCompleted": false, "parentId": 12 }
     // ---------------------------
     @PostMapping
-    public ResponseEntity<?> createMilestone(Authentication authentication,
+    public ResponseEntity<?> createMilestone(@AuthenticationPrincipal User user,
             @RequestBody MilestoneDto req) {
-        User user = userRepository.findByEmail(authentication.getName()).orElse(null);
         if (user == null)
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
 
@@ -133,23 +118,56 @@ public class MilestoneController {
             hobbyService.addHobbyToUser(user, req.hobbyTag());
         }
 
-        milestoneService.updateParentsCompletion(saved.getParent());
+        milestoneService.milestoneCreated(saved);
 
         return ResponseEntity.status(HttpStatus.CREATED).body(milestoneService.toDto(saved));
     }
 
+    // ---------------------------
+    // Create, update and complete many tasks in one request.
+    // Creates can build whole subtrees by giving each node a tempId and pointing
+    // children at it with parentTempId. The whole batch fails if any step does.
+    //
+    // Request body example (JSON):
+    // [ { "type": "create", "tempId": "a", "milestone": { "task": "Learn scales" } },
+    // { "type": "create", "tempId": "b", "parentTempId": "a",
+    // "milestone": { "task": "C major" } },
+    // { "type": "complete", "id": 42 } ]
+    // ---------------------------
+    @PostMapping("/batch")
+    public ResponseEntity<?> applyBatch(@AuthenticationPrincipal User user,
+            @RequestBody List<MilestoneBatchOperation> operations) {
+        if (user == null)
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+
+        Map<String, Long> createdIds;
+        try {
+            createdIds = milestoneService.applyBatch(user, operations);
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+
+        operations.stream()
+                .filter(op -> "create".equals(op.type()))
+                .map(op -> op.milestone().hobbyTag())
+                .filter(tag -> tag != null && !tag.isEmpty())
+                .distinct()
+                .forEach(tag -> hobbyService.addHobbyToUser(user, tag));
+
+        return ResponseEntity.ok(new MilestoneBatchResult(createdIds));
+    }
+
     // ---------------------------
     // Delete a task and all its children
     // We make this transactional to ensure cascade deletes succeed.
     // ---------------------------
     @Transactional
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteMilestone(Authentication authentication, @PathVariable Long id) {
-        User user = userRepository.findByEmail(authentication.getName()).orElse(null);
+    public ResponseEntity<?> deleteMilestone(@AuthenticationPrincipal User user, @PathVariable Long id) {
         if (user == null)
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
 
-        Optional<Milestone> targetOpt = milestoneRepository.findByIdWithChildren(id);
+        Optional<Milestone> targetOpt = milestoneRepository.findById(id);
         if (targetOpt.isEmpty())
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
 
@@ -158,7 +176,7 @@ public class MilestoneController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
-        milestoneRepository.delete(target);
+        milestoneService.deleteSubtree(target);
         return ResponseEntity.ok("Deleted");
     }
 
@@ -167,10 +185,9 @@ public class MilestoneController {
     // ---------------------------
 
     @PatchMapping("/{id}")
-    public ResponseEntity<?> updateMilestone(Authentication authentication,
+    public ResponseEntity<?> updateMilestone(@AuthenticationPrincipal User user,
             @PathVariable Long id,
             @RequestBody MilestoneDto req) {
-        User user = userRepository.findByEmail(authentication.getName()).orElse(null);
         if (user == null)
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
 
@@ -183,10 +200,29 @@ public class MilestoneController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
+        Long oldParentId = m.getParent() != null ? m.getParent().getId() : null;
+        if (req.parentId() != null && !req.parentId().equals(oldParentId)) {
+            Optional<Milestone> parentOpt = milestoneRepository.findById(req.parentId());
+            if (parentOpt.isPresent()) {
+                Milestone parent = parentOpt.get();
+                if (parent.getUser() == null || parent.getUser().getId() != user.getId()) {
+                    return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Parent milestone does not belong to user.");
+                }
+                if (milestoneService.isInSubtree(m, parent)) {
+                    return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                            .body("Cannot move a milestone under itself or one of its subtasks.");
+                }
+                if (parent.getDepth() + 1 + milestoneService.subtreeHeight(m) > MAX_DEPTH) {
+                    return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                            .body("Cannot move subtask: resulting depth > " + MAX_DEPTH + ".");
+                }
+            }
+        }
+
         milestoneMapper.updateMilestoneFromDto(req, m);
         milestoneRepository.save(m);
 
-        milestoneService.updateParentsCompletion(m.getParent());
+        milestoneService.childMoved(m, oldParentId);
 
         return ResponseEntity.ok(milestoneService.toDto(m));
     }
@@ -196,13 +232,11 @@ public class MilestoneController {
     // photo tagged to them
     // ---------------------------
     @GetMapping("/no-photo")
-    public ResponseEntity<?> getMilestonesWithoutPhoto(Authentication authentication) {
-        User user = userRepository.findByEmail(authentication.getName()).orElse(null);
+    public ResponseEntity<?> getMilestonesWithoutPhoto(@AuthenticationPrincipal User user) {
         if (user == null)
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
 
-        List<Milestone> result = milestoneRepository.findByUserIdAndTaggedPhotosIsNull(user.getId());
-        return ResponseEntity.ok(result.stream().map(milestoneService::toDto).collect(Collectors.toList()));
+        return ResponseEntity.ok(milestoneService.getMilestonesWithoutPhoto(user.getId()));
     }
 
     // ---------------------------
@@ -258,23 +292,31 @@ public class MilestoneController {
      * }
      */
 
-    // optionally: get all milestones (parent + child) for a user
+    // optionally: get all milestones (parent + child) for a user, one page at a
+    // time. Every filter is optional; pass the returned nextCursor back as
+    // cursor for the next page.
+    //
+    // Example: /api/milestones/all?hobbyTag=guitar&completed=false
+    // &dueBefore=2025-12-01T00:00:00Z&sort=dueDate&limit=50
     @GetMapping("/all")
-    public ResponseEntity<?> getAllMilestonesForUser(Authentication authentication) {
-        User user = userRepository.findByEmail(authentication.getName()).orElse(null);
+    public ResponseEntity<?> getAllMilestonesForUser(@AuthenticationPrincipal User user,
+            @RequestParam(required = false) String hobbyTag,
+            @RequestParam(required = false) Boolean completed,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime dueAfter,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime dueBefore,
+            @RequestParam(defaultValue = "false") boolean rootsOnly,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer limit) {
         if (user == null)
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
 
-        List<Milestone> roots = milestoneRepository.findByUserId(user.getId());
-        List<MilestoneDto> dtoRoots = roots.stream()
-                .map(milestoneService::toDto)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(dtoRoots);
+        MilestoneQuery query = new MilestoneQuery(hobbyTag, completed, dueAfter, dueBefore, rootsOnly, sort);
+        return ResponseEntity.ok(milestoneService.listMilestones(user.getId(), query, cursor, limit));
     }
 
     @PutMapping("/{id}/complete")
-    public ResponseEntity<?> completeMilestone(Authentication authentication, @PathVariable Long id) {
-        User user = userRepository.findByEmail(authentication.getName()).orElse(null);
+    public ResponseEntity<?> completeMilestone(@AuthenticationPrincipal User user, @PathVariable Long id) {
         if (user == null)
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
 
@@ -292,8 +334,7 @@ public class MilestoneController {
     }
 
     @PutMapping("/{id}/incomplete")
-    public ResponseEntity<?> incompleteMilestone(Authentication authentication, @PathVariable Long id) {
-        User user = userRepository.findByEmail(authentication.getName()).orElse(null);
+    public ResponseEntity<?> incompleteMilestone(@AuthenticationPrincipal User user, @PathVariable Long id) {
         if (user == null)
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
 
@@ -4,6 +4,7 @@ import HobbyList.example.HobbyList.model.User;
 import HobbyList.example.HobbyList.model.VerificationToken;
 import HobbyList.example.HobbyList.dto.ResetPasswordRequest;
 import HobbyList.example.HobbyList.dto.ResetPassword;
+import HobbyList.example.HobbyList.dto.UserUpdatedEvent;
 import HobbyList.example.HobbyList.repository.TokenRepository;
 import HobbyList.example.HobbyList.repository.UserRepository;
 import jakarta.validation.Valid;
@@ -65,6 +66,7 @@ public class PasswordResetController {
 
         user.setPassword(passwordEncoder.encode(request.password()));
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserUpdatedEvent(user));
         tokenRepository.delete(verificationToken.get());
 
         return ResponseEntity.ok(Map.of("message", "Password reset successfully"));
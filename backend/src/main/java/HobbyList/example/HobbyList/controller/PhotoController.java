@@ -5,7 +5,8 @@ import java.util.UUID;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -15,7 +16,6 @@ import HobbyList.example.HobbyList.dto.PresignRequest;
 import HobbyList.example.HobbyList.model.Photo;
 import HobbyList.example.HobbyList.model.User;
 import HobbyList.example.HobbyList.repository.PhotoRepository;
-import HobbyList.example.HobbyList.repository.UserRepository;
 import HobbyList.example.HobbyList.repository.MilestoneRepository;
 import HobbyList.example.HobbyList.model.Milestone;
 import java.util.ArrayList;
@@ -32,16 +32,14 @@ import org.springframework.web.bind.annotation.RequestBody;
 @RestController
 @RequestMapping("/api/photos")
 public class PhotoController {
-    private final UserRepository userRepository;
     private final PhotoRepository photoRepository;
     private final S3Service s3Service;
     private final HobbyService hobbyService;
     private final PhotoService photoService;
     private final MilestoneRepository milestoneRepository;
 
-    public PhotoController(UserRepository userRepository, PhotoRepository photoRepository, S3Service s3Service,
+    public PhotoController(PhotoRepository photoRepository, S3Service s3Service,
             HobbyService hobbyService, PhotoService photoService, MilestoneRepository milestoneRepository) {
-        this.userRepository = userRepository;
         this.photoRepository = photoRepository;
         this.s3Service = s3Service;
         this.hobbyService = hobbyService;
@@ -50,28 +48,17 @@ public class PhotoController {
     }
 
     @GetMapping
-    public ResponseEntity<List<PhotoDto>> getAllPhotos(Authentication authentication) {
-        User user = userRepository.findUserWithPhotosByEmail(authentication.getName()).orElse(null);
-        if (user == null) {
+    public ResponseEntity<List<PhotoDto>> getAllPhotos(@AuthenticationPrincipal User principal) {
+        if (principal == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
-
-        List<Photo> photos = user.getPhotos().stream()
-                .filter(photo -> !photo.getIsProfile())
-                .toList();
-
-        List<PhotoDto> photoDtos = photos.stream()
-                .map(photo -> {
-                    return photoService.toDto(photo, photo.getImageUrl());
-                })
-                .toList();
+        List<PhotoDto> photoDtos = photoService.getUserPhotos(principal.getId(), true);
         return ResponseEntity.ok(photoDtos);
     }
 
     @PostMapping("/upload-url")
     public ResponseEntity<String> generateUploadUrl(@RequestBody PresignRequest presignRequest,
-            Authentication authentication) {
-        User user = userRepository.findByEmail(authentication.getName()).orElse(null);
+            @AuthenticationPrincipal User user) {
         if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
@@ -84,9 +71,11 @@ public class PhotoController {
         return ResponseEntity.ok(uploadUrl);
     }
 
+    // Transactional so the tagged milestones stay managed and their new
+    // milestone_photos rows flush together as one JDBC batch
+    @Transactional
     @PostMapping
-    public ResponseEntity<String> saveURL(@Valid @RequestBody PhotoDto photoDto, Authentication authentication) {
-        User user = userRepository.findByEmail(authentication.getName()).orElse(null);
+    public ResponseEntity<String> saveURL(@Valid @RequestBody PhotoDto photoDto, @AuthenticationPrincipal User user) {
         if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
@@ -6,7 +6,9 @@ import java.util.List;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -15,8 +17,10 @@ import HobbyList.example.HobbyList.dto.PhotoDto;
 import HobbyList.example.HobbyList.dto.PresignRequest;
 import HobbyList.example.HobbyList.dto.ProfileDto;
 import HobbyList.example.HobbyList.dto.HobbyDto;
+import HobbyList.example.HobbyList.dto.UserUpdatedEvent;
 import HobbyList.example.HobbyList.model.User;
 import HobbyList.example.HobbyList.repository.UserRepository;
+import HobbyList.example.HobbyList.service.HobbyService;
 import HobbyList.example.HobbyList.service.S3Service;
 import HobbyList.example.HobbyList.service.UserService;
 import HobbyList.example.HobbyList.mapper.UserMapper;
@@ -37,18 +41,30 @@ public class ProfileController {
     private final S3Service s3Service;
     private final UserMapper userMapper;
     private final UserService userService;
+    private final HobbyService hobbyService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public ProfileController(UserRepository userRepository, S3Service s3Service,
-            UserMapper userMapper, UserService userService) {
+            UserMapper userMapper, UserService userService, HobbyService hobbyService,
+            ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.s3Service = s3Service;
         this.userMapper = userMapper;
         this.userService = userService;
+        this.hobbyService = hobbyService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // The principal is a cached snapshot, so updates work on a freshly loaded copy
+    private User loadForUpdate(User principal) {
+        if (principal == null) {
+            return null;
+        }
+        return userRepository.findById(principal.getId()).orElse(null);
     }
 
     @GetMapping
-    public ResponseEntity<?> getSelfProfile(Authentication authentication) {
-        User user = userRepository.findByEmail(authentication.getName()).orElse(null);
+    public ResponseEntity<?> getSelfProfile(@AuthenticationPrincipal User user) {
         if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
@@ -61,8 +77,7 @@ public class ProfileController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getProfile(@PathVariable Long id, Authentication authentication) {
-        User user = userRepository.findByEmail(authentication.getName()).orElse(null);
+    public ResponseEntity<?> getProfile(@PathVariable Long id, @AuthenticationPrincipal User user) {
         if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
@@ -76,8 +91,7 @@ public class ProfileController {
 
     @PostMapping("/upload-url")
     public ResponseEntity<?> generateUploadUrl(@Valid @RequestBody PresignRequest presignRequest,
-            Authentication authentication) {
-        User user = userRepository.findByEmail(authentication.getName()).orElse(null);
+            @AuthenticationPrincipal User user) {
         if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
@@ -99,8 +113,8 @@ public class ProfileController {
     }
 
     @PostMapping("/save-url")
-    public ResponseEntity<String> saveURL(@Valid @RequestBody PhotoDto photoDto, Authentication authentication) {
-        User user = userRepository.findByEmail(authentication.getName()).orElse(null);
+    public ResponseEntity<String> saveURL(@Valid @RequestBody PhotoDto photoDto, @AuthenticationPrincipal User principal) {
+        User user = loadForUpdate(principal);
         if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
@@ -113,13 +127,15 @@ public class ProfileController {
          */
         user.setProfileUrl(photoDto.imageUrl());
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserUpdatedEvent(user));
 
         return ResponseEntity.ok("Photo metadata saved successfully");
     }
 
     @PatchMapping
-    public ResponseEntity<String> updateProfile(@RequestBody ProfileDto profileDto, Authentication authentication) {
-        User user = userRepository.findByEmail(authentication.getName()).orElse(null);
+    @Transactional
+    public ResponseEntity<String> updateProfile(@RequestBody ProfileDto profileDto, @AuthenticationPrincipal User principal) {
+        User user = loadForUpdate(principal);
         if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
@@ -127,21 +143,26 @@ public class ProfileController {
         // Use UserMapper to update user entity from non-null DTO fields
         userMapper.updateUserFromDto(profileDto, user);
         userRepository.save(user);
+        if (profileDto.hobbies() != null) {
+            hobbyService.syncHobbies(user);
+        }
+        eventPublisher.publishEvent(new UserUpdatedEvent(user));
 
         return ResponseEntity.ok("Profile updated successfully");
     }
 
     // Add a single new hobby
     @PostMapping("/hobbies")
-    public ResponseEntity<String> updateHobbies(@RequestBody HobbyDto hobby, Authentication authentication) {
-        User user = userRepository.findByEmail(authentication.getName()).orElse(null);
+    @Transactional
+    public ResponseEntity<String> updateHobbies(@RequestBody HobbyDto hobby, @AuthenticationPrincipal User principal) {
+        User user = loadForUpdate(principal);
         if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        String hobbyName = hobby.name();
+        String hobbyName = HobbyService.normalize(hobby.name());
 
-        if (hobbyName == null || hobbyName.trim().isEmpty()) {
+        if (hobbyName == null) {
             return ResponseEntity.badRequest().body("Invalid hobby value.");
         }
 
@@ -152,6 +173,8 @@ public class ProfileController {
 
         user.getHobbies().add(hobbyName);
         userRepository.save(user);
+        hobbyService.syncHobbies(user);
+        eventPublisher.publishEvent(new UserUpdatedEvent(user));
 
         return ResponseEntity.ok("Hobbies updated successfully");
     }
@@ -185,9 +208,9 @@ public class ProfileController {
      */
 
     @PutMapping("hobbies")
-    public ResponseEntity<String> putMethodName(@RequestBody List<HobbyDto> hobbies, Authentication authentication) {
-        User user = userRepository.findByEmail(authentication.getName())
-                .orElse(null);
+    @Transactional
+    public ResponseEntity<String> putMethodName(@RequestBody List<HobbyDto> hobbies, @AuthenticationPrincipal User principal) {
+        User user = loadForUpdate(principal);
         if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
@@ -195,15 +218,16 @@ public class ProfileController {
         for (HobbyDto hobby : hobbies) {
             hobbyNames.add(hobby.name());
         }
-        user.setHobbies(hobbyNames); // overwrite entire list
+        user.setHobbies(HobbyService.normalizeAll(hobbyNames)); // overwrite entire list
         userRepository.save(user);
+        hobbyService.syncHobbies(user);
+        eventPublisher.publishEvent(new UserUpdatedEvent(user));
 
         return ResponseEntity.ok("Hobbies replaced successfully");
     }
 
     @GetMapping("hobbies")
-    public ResponseEntity<List<HobbyDto>> getHobbies(Authentication authentication) {
-        User user = userRepository.findByEmail(authentication.getName()).orElse(null);
+    public ResponseEntity<List<HobbyDto>> getHobbies(@AuthenticationPrincipal User user) {
         if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
@@ -1,12 +1,12 @@
 package HobbyList.example.HobbyList.controller;
 
+import HobbyList.example.HobbyList.dto.CursorPage;
 import HobbyList.example.HobbyList.dto.UserSummaryDto;
 import HobbyList.example.HobbyList.model.User;
-import HobbyList.example.HobbyList.repository.UserRepository;
 import HobbyList.example.HobbyList.service.UserService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -17,29 +17,42 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
-    private final UserRepository userRepository;
 
-    public UserController(UserService userService, UserRepository userRepository) {
+    public UserController(UserService userService) {
         this.userService = userService;
-        this.userRepository = userRepository;
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<UserSummaryDto>> searchUsers(@RequestParam String query, Authentication authentication) {
-        User user = userRepository.findByEmail(authentication.getName()).orElse(null);
+    public ResponseEntity<List<UserSummaryDto>> searchUsers(@RequestParam String query,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @AuthenticationPrincipal User user) {
         if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
-        return ResponseEntity.ok(userService.searchUsers(query, user.getId()));
+        return ResponseEntity.ok(userService.searchUsers(query, user.getId(), page, size));
+    }
+
+    @GetMapping("/by-hobby")
+    public ResponseEntity<CursorPage<UserSummaryDto>> getUsersByHobby(@RequestParam String hobby,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer limit,
+            @AuthenticationPrincipal User user) {
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(userService.getUsersByHobby(hobby, user.getId(), cursor, limit));
     }
 
     @GetMapping("/discover")
-    public ResponseEntity<List<UserSummaryDto>> discoverUsers(Authentication authentication) {
-        User user = userRepository.findByEmail(authentication.getName()).orElse(null);
+    public ResponseEntity<List<UserSummaryDto>> discoverUsers(@RequestParam(defaultValue = "random") String mode,
+            @AuthenticationPrincipal User user) {
         if (user == null) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
-        List<UserSummaryDto> discoveryUsers = userService.getDiscoveryUsers(user.getId());
+        List<UserSummaryDto> discoveryUsers = "affinity".equalsIgnoreCase(mode)
+                ? userService.getRecommendedUsers(user.getId())
+                : userService.getDiscoveryUsers(user.getId());
         return ResponseEntity.ok(discoveryUsers);
     }
 }
@@ -0,0 +1,8 @@
+package HobbyList.example.HobbyList.dto;
+
+import java.util.List;
+
+public record CursorPage<T>(
+                List<T> items,
+                Long nextCursor) {
+}
@@ -0,0 +1,3 @@
+package HobbyList.example.HobbyList.dto;
+
+public record FollowChangedEvent(long followerId, long targetId, boolean following) {}
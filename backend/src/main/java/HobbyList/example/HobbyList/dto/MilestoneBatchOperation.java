@@ -0,0 +1,13 @@
+package HobbyList.example.HobbyList.dto;
+
+// One step of a batch request. type is "create", "update", "complete" or
+// "incomplete". Creates may name a tempId so later creates in the same batch
+// can hang under them through parentTempId; everything else targets an
+// existing milestone by id.
+public record MilestoneBatchOperation(
+                String type,
+                Long id,
+                String tempId,
+                String parentTempId,
+                MilestoneDto milestone) {
+}
@@ -0,0 +1,7 @@
+package HobbyList.example.HobbyList.dto;
+
+import java.util.Map;
+
+public record MilestoneBatchResult(
+                Map<String, Long> createdIds) {
+}
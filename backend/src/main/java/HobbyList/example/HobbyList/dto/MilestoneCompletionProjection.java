@@ -0,0 +1,17 @@
+package HobbyList.example.HobbyList.dto;
+
+public interface MilestoneCompletionProjection {
+    Long getId();
+
+    Long getParentId();
+
+    Boolean getCompleted();
+
+    Double getCompletionRate();
+
+    String getManualState();
+
+    Integer getChildCount();
+
+    Double getChildRateSum();
+}
@@ -0,0 +1,7 @@
+package HobbyList.example.HobbyList.dto;
+
+public interface MilestonePhotoTagProjection {
+    Long getMilestoneId();
+
+    Long getPhotoId();
+}
@@ -0,0 +1,21 @@
+package HobbyList.example.HobbyList.dto;
+
+import java.time.OffsetDateTime;
+
+public interface MilestoneProjection {
+    Long getId();
+
+    String getTask();
+
+    OffsetDateTime getDueDate();
+
+    Boolean getCompleted();
+
+    Double getCompletionRate();
+
+    Long getParentId();
+
+    String getHobbyTag();
+
+    String getManualState();
+}
@@ -0,0 +1,15 @@
+package HobbyList.example.HobbyList.dto;
+
+import java.time.OffsetDateTime;
+
+// Filters for the paged milestone listing; null fields are not applied.
+// sort is "id" (creation order, the default) or "dueDate" (soonest first,
+// undated last).
+public record MilestoneQuery(
+                String hobbyTag,
+                Boolean completed,
+                OffsetDateTime dueAfter,
+                OffsetDateTime dueBefore,
+                boolean rootsOnly,
+                String sort) {
+}
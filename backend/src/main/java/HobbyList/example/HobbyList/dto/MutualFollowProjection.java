@@ -0,0 +1,7 @@
+package HobbyList.example.HobbyList.dto;
+
+public interface MutualFollowProjection {
+    Long getId();
+
+    Long getMutuals();
+}
@@ -0,0 +1,15 @@
+package HobbyList.example.HobbyList.dto;
+
+import java.time.LocalDateTime;
+
+public interface PhotoProjection {
+    Long getId();
+
+    String getTopic();
+
+    String getImageUrl();
+
+    String getDescription();
+
+    LocalDateTime getUploadDate();
+}
@@ -0,0 +1,21 @@
+package HobbyList.example.HobbyList.dto;
+
+import java.util.List;
+
+public interface ProfileProjection {
+    Long getId();
+
+    String getDisplayName();
+
+    String getProfileUrl();
+
+    String getDescription();
+
+    List<String> getHobbies();
+
+    Boolean getIsPrivate();
+
+    Integer getFollowersCount();
+
+    Integer getFollowingCount();
+}
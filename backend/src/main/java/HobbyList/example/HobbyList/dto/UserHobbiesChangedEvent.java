@@ -0,0 +1,5 @@
+package HobbyList.example.HobbyList.dto;
+
+import java.util.List;
+
+public record UserHobbiesChangedEvent(long userId, List<Long> hobbyIds) {}
@@ -0,0 +1,7 @@
+package HobbyList.example.HobbyList.dto;
+
+public interface UserNameProjection {
+    Long getId();
+
+    String getDisplayName();
+}
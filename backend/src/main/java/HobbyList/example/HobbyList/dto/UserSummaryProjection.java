@@ -8,6 +8,4 @@ public interface UserSummaryProjection {
     String getProfileUrl();
 
     String getHobbies();
-
-    String getRelationship();
 }
@@ -0,0 +1,5 @@
+package HobbyList.example.HobbyList.dto;
+
+import HobbyList.example.HobbyList.model.User;
+
+public record UserUpdatedEvent(User user) {}
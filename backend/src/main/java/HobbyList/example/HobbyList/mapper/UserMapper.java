@@ -2,6 +2,7 @@ package HobbyList.example.HobbyList.mapper;
 
 import HobbyList.example.HobbyList.dto.ProfileDto;
 import HobbyList.example.HobbyList.model.User;
+import HobbyList.example.HobbyList.service.HobbyService;
 
 import org.springframework.stereotype.Component;
 
@@ -31,7 +32,7 @@ public class UserMapper {
         }
 
         if (dto.hobbies() != null) {
-            user.setHobbies(dto.hobbies());
+            user.setHobbies(HobbyService.normalizeAll(dto.hobbies()));
         }
     }
 }
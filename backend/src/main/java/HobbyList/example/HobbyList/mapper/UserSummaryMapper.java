@@ -0,0 +1,117 @@
+package HobbyList.example.HobbyList.mapper;
+
+import HobbyList.example.HobbyList.dto.UserSummaryDto;
+import HobbyList.example.HobbyList.dto.UserSummaryProjection;
+import HobbyList.example.HobbyList.service.RelationshipResolver;
+import HobbyList.example.HobbyList.service.S3Service;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Maps user summary rows to DTOs for every list endpoint.
+ *
+ * Parsed hobby lists are cached by user id together with the JSON they came
+ * from, so a user who shows up on many pages is parsed once until their hobbies
+ * change. Hobby names are interned through a bounded cache, so the cached lists
+ * share one copy of each popular name without keeping every name ever seen.
+ */
+@Component
+public class UserSummaryMapper {
+
+    private static final Logger log = LoggerFactory.getLogger(UserSummaryMapper.class);
+
+    private final S3Service s3Service;
+    private final RelationshipResolver relationshipResolver;
+    private final ObjectReader hobbiesReader;
+    private final Cache<Long, ParsedHobbies> parsedHobbies;
+    private final Cache<String, String> hobbyNames;
+
+    private record ParsedHobbies(String json, List<String> hobbies) {
+    }
+
+    public UserSummaryMapper(S3Service s3Service, RelationshipResolver relationshipResolver,
+            ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${summaries.hobby-cache.max-size:50000}") long maxSize,
+            @Value("${summaries.hobby-names.max-size:10000}") long maxNames) {
+        this.s3Service = s3Service;
+        this.relationshipResolver = relationshipResolver;
+        this.hobbiesReader = objectMapper.readerFor(new TypeReference<List<String>>() {
+        });
+        this.parsedHobbies = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, parsedHobbies, "summaryHobbies");
+        this.hobbyNames = Caffeine.newBuilder()
+                .maximumSize(maxNames)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, hobbyNames, "summaryHobbyNames");
+    }
+
+    // Presigns every avatar on the page in one batch before mapping the rows
+    public List<UserSummaryDto> toDtos(List<UserSummaryProjection> users, Long viewerId) {
+        List<String> keys = users.stream()
+                .map(UserSummaryProjection::getProfileUrl)
+                .filter(Objects::nonNull)
+                .map(this::profileKey)
+                .toList();
+        Map<String, String> presignedUrls = s3Service.generateDownloadUrls("hobbylist-photos", keys);
+        Map<Long, String> relationships = relationshipResolver.resolve(viewerId,
+                users.stream().map(UserSummaryProjection::getId).toList());
+
+        List<UserSummaryDto> dtos = new ArrayList<>(users.size());
+        for (UserSummaryProjection user : users) {
+            dtos.add(new UserSummaryDto(
+                    user.getId(),
+                    user.getDisplayName(),
+                    user.getProfileUrl() != null ? presignedUrls.get(profileKey(user.getProfileUrl())) : null,
+                    hobbies(user.getId(), user.getHobbies()),
+                    relationships.get(user.getId())));
+        }
+        return dtos;
+    }
+
+    private List<String> hobbies(Long userId, String json) {
+        if (json == null) {
+            return List.of();
+        }
+        ParsedHobbies cached = parsedHobbies.getIfPresent(userId);
+        if (cached != null && cached.json().equals(json)) {
+            return cached.hobbies();
+        }
+
+        List<String> hobbies;
+        try {
+            List<String> parsed = hobbiesReader.readValue(json);
+            hobbies = parsed.stream()
+                    .filter(Objects::nonNull)
+                    .map(name -> hobbyNames.get(name, key -> key))
+                    .toList();
+        } catch (Exception e) {
+            log.warn("Could not parse hobbies for user {}: {}", userId, e.getMessage());
+            return List.of();
+        }
+        parsedHobbies.put(userId, new ParsedHobbies(json, hobbies));
+        return hobbies;
+    }
+
+    private String profileKey(String profileUrl) {
+        return profileUrl.substring(profileUrl.indexOf("profile/"));
+    }
+}
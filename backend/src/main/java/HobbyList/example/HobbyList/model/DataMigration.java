@@ -0,0 +1,29 @@
+package HobbyList.example.HobbyList.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Marker row for a one-time data migration. db/indexes.sql and the startup
+ * backfills skip their work once the named row exists.
+ */
+@Entity
+@Table(name = "data_migrations")
+@Data
+@NoArgsConstructor
+public class DataMigration {
+
+    @Id
+    private String name;
+
+    @Column(nullable = false)
+    private LocalDateTime appliedAt;
+
+    public DataMigration(String name) {
+        this.name = name;
+        this.appliedAt = LocalDateTime.now();
+    }
+}
@@ -6,13 +6,15 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "follow_requests")
+@Table(name = "follow_requests", indexes = @Index(name = "idx_follow_requests_requester",
+        columnList = "requester_id, status, target_id"))
 @Data
 @NoArgsConstructor
 public class FollowRequest {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "follow_requests_seq")
+    @SequenceGenerator(name = "follow_requests_seq", sequenceName = "follow_requests_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
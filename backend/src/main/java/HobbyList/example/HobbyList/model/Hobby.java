@@ -0,0 +1,22 @@
+package HobbyList.example.HobbyList.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Dictionary of normalized hobby names; users link to it through user_hobbies.
+// Rows are only inserted by native SQL, so the id is an identity column that
+// those inserts leave to Postgres rather than a pooled sequence
+@Entity
+@Table(name = "hobbies")
+@Data
+@NoArgsConstructor
+public class Hobby {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private String name;
+}
@@ -9,12 +9,17 @@ import jakarta.persistence.*;
 import lombok.Data;
 
 @Entity
-@Table(name = "milestones")
+@Table(name = "milestones", indexes = {
+        @Index(name = "idx_milestones_user_parent_due", columnList = "user_id, parent_id, due_date"),
+        @Index(name = "idx_milestones_user_due", columnList = "user_id, due_date, id"),
+        @Index(name = "idx_milestones_user_hobby", columnList = "user_id, hobby_tag, id")
+})
 @Data
 public class Milestone {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "milestones_seq")
+    @SequenceGenerator(name = "milestones_seq", sequenceName = "milestones_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -41,6 +46,21 @@ public class Milestone {
 
     private int depth;
 
+    // Materialized ancestor path such as "/1/5/9/", ending with this milestone's
+    // own id; assigned and moved by MilestoneRepository
+    @Column(insertable = false, updatable = false)
+    private String path;
+
+    // Direct-child aggregates, maintained only by MilestoneRepository's atomic
+    // updates so a stale entity can never overwrite them
+    @Column(nullable = false, insertable = false, updatable = false,
+            columnDefinition = "integer not null default 0")
+    private int childCount;
+
+    @Column(nullable = false, insertable = false, updatable = false,
+            columnDefinition = "double precision not null default 0")
+    private double childRateSum;
+
     @OneToMany(mappedBy = "parent", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Milestone> subMilestones = new ArrayList<>();
 
@@ -52,7 +72,8 @@ public class Milestone {
     @JoinTable(
         name = "milestone_photos",
         joinColumns = @JoinColumn(name = "milestone_id"),
-        inverseJoinColumns = @JoinColumn(name = "photo_id")
+        inverseJoinColumns = @JoinColumn(name = "photo_id"),
+        indexes = @Index(name = "idx_milestone_photos_milestone", columnList = "milestone_id, photo_id")
     )
     private List<Photo> taggedPhotos;
 
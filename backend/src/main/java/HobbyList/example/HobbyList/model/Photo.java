@@ -11,7 +11,8 @@ import lombok.Data;
 @Data
 public class Photo {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "photos_seq")
+    @SequenceGenerator(name = "photos_seq", sequenceName = "photos_seq", allocationSize = 50)
     private Long id;
 
     private String topic;
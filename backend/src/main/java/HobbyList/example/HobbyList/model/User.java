@@ -20,7 +20,8 @@ import java.util.HashSet;
 @Data
 public class User implements UserDetails {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private long id;
 
     // @Column(nullable = false)
@@ -62,12 +63,23 @@ public class User implements UserDetails {
     private VerificationToken token;
 
     @ManyToMany
-    @JoinTable(name = "user_followers", joinColumns = @JoinColumn(name = "user_id"), inverseJoinColumns = @JoinColumn(name = "follower_id"))
+    @JoinTable(name = "user_followers", joinColumns = @JoinColumn(name = "user_id"), inverseJoinColumns = @JoinColumn(name = "follower_id"),
+            indexes = @Index(name = "idx_user_followers_follower", columnList = "follower_id, user_id"))
     private Set<User> followers = new HashSet<>();
 
     @ManyToMany(mappedBy = "followers")
     private Set<User> following = new HashSet<>();
 
+    // Denormalized sizes of the two sets above, maintained only by
+    // UserRepository.adjustFollowCounts inside the follow transactions
+    @Column(nullable = false, insertable = false, updatable = false,
+            columnDefinition = "integer not null default 0")
+    private int followersCount;
+
+    @Column(nullable = false, insertable = false, updatable = false,
+            columnDefinition = "integer not null default 0")
+    private int followingCount;
+
     public User() {
     }
 
@@ -8,6 +8,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Table;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToOne;
 
@@ -16,7 +17,8 @@ import jakarta.persistence.OneToOne;
 @Data
 public class VerificationToken {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "verification_tokens_seq")
+    @SequenceGenerator(name = "verification_tokens_seq", sequenceName = "verification_tokens_seq", allocationSize = 50)
     private Long id;
 
     private String token;
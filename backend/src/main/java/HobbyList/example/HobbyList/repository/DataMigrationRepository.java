@@ -0,0 +1,10 @@
+package HobbyList.example.HobbyList.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import HobbyList.example.HobbyList.model.DataMigration;
+
+@Repository
+public interface DataMigrationRepository extends JpaRepository<DataMigration, String> {
+}
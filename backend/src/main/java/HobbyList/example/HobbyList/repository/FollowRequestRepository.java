@@ -3,8 +3,11 @@ package HobbyList.example.HobbyList.repository;
 import HobbyList.example.HobbyList.model.FollowRequest;
 import HobbyList.example.HobbyList.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,4 +17,10 @@ public interface FollowRequestRepository extends JpaRepository<FollowRequest, Lo
 
     Optional<FollowRequest> findByRequesterAndTarget(User requester, User target);
     Optional<FollowRequest> findByRequesterAndTargetAndStatus(User requester, User target, FollowRequest.RequestStatus status);
+
+    @Query(value = """
+            SELECT fr.target_id FROM follow_requests fr
+            WHERE fr.requester_id = :requesterId AND fr.status = 'PENDING' AND fr.target_id IN (:ids)
+            """, nativeQuery = true)
+    List<Long> findPendingTargetsAmong(@Param("requesterId") Long requesterId, @Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,53 @@
+package HobbyList.example.HobbyList.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import HobbyList.example.HobbyList.dto.UserHobbyProjection;
+import HobbyList.example.HobbyList.model.Hobby;
+
+@Repository
+public interface HobbyRepository extends JpaRepository<Hobby, Long> {
+
+    Optional<Hobby> findByName(String name);
+
+    @Query("SELECT h.id FROM Hobby h WHERE h.name IN :names")
+    List<Long> findIdsByNameIn(@Param("names") Collection<String> names);
+
+    @Query(value = "SELECT uh.user_id AS userId, uh.hobby_id AS hobbyId FROM user_hobbies uh", nativeQuery = true)
+    Stream<UserHobbyProjection> streamAllUserHobbies();
+
+    // The unique constraint on name makes a repeated insert a no-op
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            INSERT INTO hobbies (name) VALUES (:name)
+            ON CONFLICT (name) DO NOTHING
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name);
+
+    // user_hobbies mirrors users.hobbies; these keep it in step after the JSON
+    // list is saved
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            INSERT INTO user_hobbies (user_id, hobby_id)
+            SELECT :userId, h.id FROM hobbies h WHERE h.id IN (:hobbyIds)
+            ON CONFLICT DO NOTHING
+            """, nativeQuery = true)
+    int addUserHobbies(@Param("userId") Long userId, @Param("hobbyIds") Collection<Long> hobbyIds);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM user_hobbies WHERE user_id = :userId AND hobby_id NOT IN (:hobbyIds)", nativeQuery = true)
+    int retainUserHobbies(@Param("userId") Long userId, @Param("hobbyIds") Collection<Long> hobbyIds);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM user_hobbies WHERE user_id = :userId", nativeQuery = true)
+    int clearUserHobbies(@Param("userId") Long userId);
+}
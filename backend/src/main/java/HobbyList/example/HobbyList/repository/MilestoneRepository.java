@@ -1,22 +1,307 @@
 package HobbyList.example.HobbyList.repository;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import HobbyList.example.HobbyList.dto.MilestoneCompletionProjection;
+import HobbyList.example.HobbyList.dto.MilestonePhotoTagProjection;
+import HobbyList.example.HobbyList.dto.MilestoneProjection;
 import HobbyList.example.HobbyList.model.Milestone;
 
 @Repository
 public interface MilestoneRepository extends JpaRepository<Milestone, Long> {
     List<Milestone> findByUserIdAndParentIsNull(Long userId);
-    List<Milestone> findByUserIdAndTaggedPhotosIsNull(Long userId);
     List<Milestone> findByUserId(Long userId);
 
-    @Query("SELECT m FROM Milestone m LEFT JOIN FETCH m.subMilestones WHERE m.id = :id")
-    Optional<Milestone> findByIdWithChildren(@Param("id") Long id);
+    // Flat rows for every milestone a user owns; the tree is assembled in memory
+    @Query("""
+            SELECT m.id AS id, m.task AS task, m.dueDate AS dueDate, m.completed AS completed,
+                   m.completionRate AS completionRate, p.id AS parentId, m.hobbyTag AS hobbyTag,
+                   m.manualState AS manualState
+            FROM Milestone m LEFT JOIN m.parent p
+            WHERE m.user.id = :userId
+            ORDER BY m.id
+            """)
+    List<MilestoneProjection> findRowsByUserId(@Param("userId") Long userId);
 
+    // Rows of the user's root milestones with the hobby tag plus every milestone
+    // under them; the roots come off idx_milestones_user_hobby
+    @Query("""
+            SELECT m.id AS id, m.task AS task, m.dueDate AS dueDate, m.completed AS completed,
+                   m.completionRate AS completionRate, p.id AS parentId, m.hobbyTag AS hobbyTag,
+                   m.manualState AS manualState
+            FROM Milestone r JOIN Milestone m ON m.user.id = r.user.id AND m.path LIKE CONCAT(r.path, '%')
+            LEFT JOIN m.parent p
+            WHERE r.user.id = :userId AND r.hobbyTag = :hobbyTag AND r.parent IS NULL
+            ORDER BY m.id
+            """)
+    List<MilestoneProjection> findTreeRowsByRootHobbyTag(@Param("userId") Long userId,
+            @Param("hobbyTag") String hobbyTag);
+
+    // Anti-join on milestone_photos; IS EMPTY renders as NOT EXISTS
+    @Query("""
+            SELECT m.id AS id, m.task AS task, m.dueDate AS dueDate, m.completed AS completed,
+                   m.completionRate AS completionRate, p.id AS parentId, m.hobbyTag AS hobbyTag,
+                   m.manualState AS manualState
+            FROM Milestone m LEFT JOIN m.parent p
+            WHERE m.user.id = :userId AND m.taggedPhotos IS EMPTY
+            ORDER BY m.id
+            """)
+    List<MilestoneProjection> findUntaggedRowsByUserId(@Param("userId") Long userId);
+
+    @Query("""
+            SELECT m.id AS milestoneId, p.id AS photoId
+            FROM Milestone m JOIN m.taggedPhotos p
+            WHERE m.user.id = :userId
+            """)
+    List<MilestonePhotoTagProjection> findPhotoTagsByUserId(@Param("userId") Long userId);
+
+    @Query("""
+            SELECT m.id AS milestoneId, p.id AS photoId
+            FROM Milestone m JOIN m.taggedPhotos p
+            WHERE m.id IN :ids
+            """)
+    List<MilestonePhotoTagProjection> findPhotoTagsByMilestoneIds(@Param("ids") Collection<Long> ids);
+
+    // Keyset page in id order
+    @Query("""
+            SELECT m.id AS id, m.task AS task, m.dueDate AS dueDate, m.completed AS completed,
+                   m.completionRate AS completionRate, p.id AS parentId, m.hobbyTag AS hobbyTag,
+                   m.manualState AS manualState
+            FROM Milestone m LEFT JOIN m.parent p
+            WHERE m.user.id = :userId
+              AND (:rootsOnly = false OR m.parent IS NULL)
+              AND (:hobbyTag IS NULL OR m.hobbyTag = :hobbyTag)
+              AND (:completed IS NULL OR m.completed = :completed)
+              AND (:dueAfter IS NULL OR m.dueDate >= :dueAfter)
+              AND (:dueBefore IS NULL OR m.dueDate < :dueBefore)
+              AND m.id > :afterId
+            ORDER BY m.id
+            """)
+    List<MilestoneProjection> findPageById(@Param("userId") Long userId, @Param("rootsOnly") boolean rootsOnly,
+            @Param("hobbyTag") String hobbyTag, @Param("completed") Boolean completed,
+            @Param("dueAfter") OffsetDateTime dueAfter, @Param("dueBefore") OffsetDateTime dueBefore,
+            @Param("afterId") Long afterId, Limit limit);
+
+    // Keyset page in due-date order, undated milestones last; the cursor is the
+    // (due date, id) of the previous page's last row
+    @Query("""
+            SELECT m.id AS id, m.task AS task, m.dueDate AS dueDate, m.completed AS completed,
+                   m.completionRate AS completionRate, p.id AS parentId, m.hobbyTag AS hobbyTag,
+                   m.manualState AS manualState
+            FROM Milestone m LEFT JOIN m.parent p
+            WHERE m.user.id = :userId
+              AND (:rootsOnly = false OR m.parent IS NULL)
+              AND (:hobbyTag IS NULL OR m.hobbyTag = :hobbyTag)
+              AND (:completed IS NULL OR m.completed = :completed)
+              AND (:dueAfter IS NULL OR m.dueDate >= :dueAfter)
+              AND (:dueBefore IS NULL OR m.dueDate < :dueBefore)
+              AND (:afterId IS NULL
+                   OR (:afterDue IS NOT NULL AND (m.dueDate > :afterDue
+                       OR (m.dueDate = :afterDue AND m.id > :afterId) OR m.dueDate IS NULL))
+                   OR (:afterDue IS NULL AND m.dueDate IS NULL AND m.id > :afterId))
+            ORDER BY m.dueDate ASC NULLS LAST, m.id
+            """)
+    List<MilestoneProjection> findPageByDueDate(@Param("userId") Long userId, @Param("rootsOnly") boolean rootsOnly,
+            @Param("hobbyTag") String hobbyTag, @Param("completed") Boolean completed,
+            @Param("dueAfter") OffsetDateTime dueAfter, @Param("dueBefore") OffsetDateTime dueBefore,
+            @Param("afterId") Long afterId, @Param("afterDue") OffsetDateTime afterDue, Limit limit);
+
+    @Query("SELECT m.dueDate FROM Milestone m WHERE m.id = :id")
+    Optional<OffsetDateTime> findDueDateById(@Param("id") Long id);
+
+    @Query("SELECT m.path FROM Milestone m WHERE m.id = :id")
+    Optional<String> findPathById(@Param("id") Long id);
+
+    @Query("SELECT m.completionRate FROM Milestone m WHERE m.id = :id")
+    Optional<Double> findCompletionRateById(@Param("id") Long id);
+
+    // The milestone itself followed by its ancestors, nearest first, read off its path
+    @Query(value = """
+            SELECT a.id AS id, a.parent_id AS parentId, a.completed AS completed,
+                   a.completion_rate AS completionRate, a.manual_state AS manualState,
+                   a.child_count AS childCount, a.child_rate_sum AS childRateSum
+            FROM milestones m
+            JOIN milestones a ON a.id = ANY (string_to_array(trim(both '/' from m.path), '/')::bigint[])
+            WHERE m.id = :id
+            ORDER BY length(a.path) DESC
+            """, nativeQuery = true)
+    List<MilestoneCompletionProjection> findAncestorChain(@Param("id") Long id);
+
+    @Query(value = "SELECT COALESCE(MAX(depth), 0) FROM milestones WHERE path LIKE :pathPrefix || '%'", nativeQuery = true)
+    int findMaxDepthUnder(@Param("pathPrefix") String pathPrefix);
+
+    // Appends each milestone's id to its parent's path right after insert; parents
+    // must already have their path, so newly inserted trees go one level at a time
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            UPDATE milestones m
+            SET path = COALESCE((SELECT p.path FROM milestones p WHERE p.id = m.parent_id), '/') || m.id || '/'
+            WHERE m.id IN (:ids)
+            """, nativeQuery = true)
+    int assignPaths(@Param("ids") Collection<Long> ids);
+
+    // Rewrites the path prefix and depth of a whole subtree after a reparent
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            UPDATE milestones
+            SET path = :newPrefix || substr(path, length(:oldPrefix) + 1),
+                depth = depth + :depthDelta
+            WHERE path LIKE :oldPrefix || '%'
+            """, nativeQuery = true)
+    int movePath(@Param("oldPrefix") String oldPrefix, @Param("newPrefix") String newPrefix,
+            @Param("depthDelta") int depthDelta);
+
+    // Marks a milestone complete and every descendant done in one statement
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            UPDATE milestones
+            SET completed = true,
+                completion_rate = 1.0,
+                child_rate_sum = child_count,
+                manual_state = CASE WHEN path = :pathPrefix THEN 'complete' ELSE 'none' END
+            WHERE path LIKE :pathPrefix || '%'
+            """, nativeQuery = true)
+    int completeSubtree(@Param("pathPrefix") String pathPrefix);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = """
+            DELETE FROM milestone_photos
+            WHERE milestone_id IN (SELECT id FROM milestones WHERE path LIKE :pathPrefix || '%')
+            """, nativeQuery = true)
+    int deletePhotoTagsUnder(@Param("pathPrefix") String pathPrefix);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM milestones WHERE path LIKE :pathPrefix || '%'", nativeQuery = true)
+    int deleteSubtree(@Param("pathPrefix") String pathPrefix);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Milestone m SET m.manualState = 'incomplete', m.completed = false WHERE m.id = :id")
+    int markIncomplete(@Param("id") Long id);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            UPDATE milestones
+            SET completed = :completed, completion_rate = :rate, manual_state = :state,
+                child_rate_sum = child_rate_sum + :childDelta
+            WHERE id = :id
+            """, nativeQuery = true)
+    int updateCompletion(@Param("id") Long id, @Param("completed") boolean completed,
+            @Param("rate") double rate, @Param("state") String state, @Param("childDelta") double childDelta);
+
+    // Adds or removes a direct child's contribution to its parent's aggregates
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            UPDATE milestones
+            SET child_count = child_count + :countDelta, child_rate_sum = child_rate_sum + :rateDelta
+            WHERE id = :id
+            """, nativeQuery = true)
+    int adjustChildAggregates(@Param("id") Long id, @Param("countDelta") int countDelta,
+            @Param("rateDelta") double rateDelta);
+
+    @Query("SELECT COALESCE(MAX(m.depth), -1) FROM Milestone m")
+    int findMaxDepth();
+
+    /**
+     * Recomputes child aggregates, completion rate and completed flag for every
+     * milestone at one depth from the rows one level below, following the same
+     * manual-state rules as MilestoneService.propagateCompletion. Run it from
+     * the deepest level up. Only rows that drifted are rewritten.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            UPDATE milestones m
+            SET child_count = s.child_count,
+                child_rate_sum = s.child_rate_sum,
+                manual_state = s.state,
+                completed = s.completed,
+                completion_rate = s.rate
+            FROM (
+                SELECT a.id, a.child_count, a.child_rate_sum,
+                       CASE WHEN a.manual_state = 'complete' AND a.child_count > 0 AND a.avg_rate < 1.0
+                            THEN 'none' ELSE a.manual_state END AS state,
+                       CASE WHEN a.manual_state = 'incomplete' THEN false
+                            WHEN a.manual_state = 'complete' THEN NOT (a.child_count > 0 AND a.avg_rate < 1.0)
+                            ELSE a.avg_rate >= 1.0 END AS completed,
+                       CASE WHEN a.manual_state = 'complete' AND NOT (a.child_count > 0 AND a.avg_rate < 1.0)
+                            THEN 1.0 ELSE a.avg_rate END AS rate
+                FROM (
+                    SELECT r.id, r.manual_state, r.child_count, r.child_rate_sum,
+                           CASE WHEN r.raw_rate > 1.0 - 1e-9 THEN 1.0
+                                WHEN r.raw_rate < 1e-9 THEN 0.0
+                                ELSE r.raw_rate END AS avg_rate
+                    FROM (
+                        SELECT p.id, p.manual_state, COUNT(c.id) AS child_count,
+                               COALESCE(SUM(c.completion_rate), 0) AS child_rate_sum,
+                               CASE WHEN COUNT(c.id) > 0 THEN COALESCE(SUM(c.completion_rate), 0) / COUNT(c.id)
+                                    WHEN p.completed THEN 1.0 ELSE 0.0 END AS raw_rate
+                        FROM milestones p
+                        LEFT JOIN milestones c ON c.parent_id = p.id
+                        WHERE p.depth = :depth
+                        GROUP BY p.id, p.manual_state, p.completed
+                    ) r
+                ) a
+            ) s
+            WHERE m.id = s.id
+              AND (m.child_count <> s.child_count
+                   OR ABS(m.child_rate_sum - s.child_rate_sum) > 1e-9
+                   OR m.manual_state IS DISTINCT FROM s.state
+                   OR m.completed <> s.completed
+                   OR m.completion_rate IS DISTINCT FROM s.rate)
+            """, nativeQuery = true)
+    int recomputeCompletionAtDepth(@Param("depth") int depth);
+
+    // Same recomputation as recomputeCompletionAtDepth, limited to the given
+    // milestones; callers pass one level at a time, deepest first
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            UPDATE milestones m
+            SET child_count = s.child_count,
+                child_rate_sum = s.child_rate_sum,
+                manual_state = s.state,
+                completed = s.completed,
+                completion_rate = s.rate
+            FROM (
+                SELECT a.id, a.child_count, a.child_rate_sum,
+                       CASE WHEN a.manual_state = 'complete' AND a.child_count > 0 AND a.avg_rate < 1.0
+                            THEN 'none' ELSE a.manual_state END AS state,
+                       CASE WHEN a.manual_state = 'incomplete' THEN false
+                            WHEN a.manual_state = 'complete' THEN NOT (a.child_count > 0 AND a.avg_rate < 1.0)
+                            ELSE a.avg_rate >= 1.0 END AS completed,
+                       CASE WHEN a.manual_state = 'complete' AND NOT (a.child_count > 0 AND a.avg_rate < 1.0)
+                            THEN 1.0 ELSE a.avg_rate END AS rate
+                FROM (
+                    SELECT r.id, r.manual_state, r.child_count, r.child_rate_sum,
+                           CASE WHEN r.raw_rate > 1.0 - 1e-9 THEN 1.0
+                                WHEN r.raw_rate < 1e-9 THEN 0.0
+                                ELSE r.raw_rate END AS avg_rate
+                    FROM (
+                        SELECT p.id, p.manual_state, COUNT(c.id) AS child_count,
+                               COALESCE(SUM(c.completion_rate), 0) AS child_rate_sum,
+                               CASE WHEN COUNT(c.id) > 0 THEN COALESCE(SUM(c.completion_rate), 0) / COUNT(c.id)
+                                    WHEN p.completed THEN 1.0 ELSE 0.0 END AS raw_rate
+                        FROM milestones p
+                        LEFT JOIN milestones c ON c.parent_id = p.id
+                        WHERE p.id IN (:ids)
+                        GROUP BY p.id, p.manual_state, p.completed
+                    ) r
+                ) a
+            ) s
+            WHERE m.id = s.id
+              AND (m.child_count <> s.child_count
+                   OR ABS(m.child_rate_sum - s.child_rate_sum) > 1e-9
+                   OR m.manual_state IS DISTINCT FROM s.state
+                   OR m.completed <> s.completed
+                   OR m.completion_rate IS DISTINCT FROM s.rate)
+            """, nativeQuery = true)
+    int recomputeCompletion(@Param("ids") Collection<Long> ids);
 }
@@ -1,9 +1,14 @@
 package HobbyList.example.HobbyList.repository;
 
+import HobbyList.example.HobbyList.dto.MilestonePhotoTagProjection;
+import HobbyList.example.HobbyList.dto.PhotoProjection;
 import HobbyList.example.HobbyList.model.Photo;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,4 +25,21 @@ public interface PhotoRepository extends JpaRepository<Photo, Long> {
 
     // Find all non-profile photos for a user
     List<Photo> findByUserIdAndIsProfileFalse(Long userId);
+
+    // Only the columns PhotoDto needs; galleryOnly leaves out profile pictures
+    @Query("""
+            SELECT p.id AS id, p.topic AS topic, p.imageUrl AS imageUrl,
+                   p.description AS description, p.uploadDate AS uploadDate
+            FROM Photo p
+            WHERE p.user.id = :userId AND (:galleryOnly = false OR p.isProfile = false)
+            ORDER BY p.id
+            """)
+    List<PhotoProjection> findRowsByUserId(@Param("userId") Long userId, @Param("galleryOnly") boolean galleryOnly);
+
+    @Query("""
+            SELECT m.id AS milestoneId, p.id AS photoId
+            FROM Photo p JOIN p.taggedMilestones m
+            WHERE p.id IN :ids
+            """)
+    List<MilestonePhotoTagProjection> findMilestoneTagsByPhotoIds(@Param("ids") Collection<Long> ids);
 }
@@ -1,14 +1,20 @@
 package HobbyList.example.HobbyList.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import HobbyList.example.HobbyList.model.User;
+import HobbyList.example.HobbyList.dto.MutualFollowProjection;
+import HobbyList.example.HobbyList.dto.ProfileProjection;
+import HobbyList.example.HobbyList.dto.UserNameProjection;
 import HobbyList.example.HobbyList.dto.UserSummaryProjection;
 
 @Repository
@@ -22,91 +28,151 @@ public interface UserRepository extends JpaRepository<User, Long> {
             u.id AS id,
             u.display_name AS displayName,
             u.profile_url AS profileUrl,
-            u.hobbies::jsonb AS hobbies,
-
-            CASE
-                WHEN uf.follower_id IS NOT NULL THEN 'FOLLOWING'
-                WHEN fr.id IS NOT NULL THEN 'REQUESTED'
-                ELSE 'NONE'
-            END AS relationship
+            u.hobbies::jsonb AS hobbies
 
             FROM users u
 
-            LEFT JOIN user_followers uf
-            ON uf.user_id = u.id
-            AND uf.follower_id = :currentUserId
-
-            LEFT JOIN follow_requests fr
-            ON fr.requester_id = :currentUserId
-            AND fr.target_id = u.id
-            AND fr.status = 'PENDING'
-
-            WHERE LOWER(u.display_name) LIKE LOWER(CONCAT('%', :query, '%'))
+            WHERE LOWER(u.display_name) LIKE :pattern
             AND u.id != :currentUserId
 
-            ORDER BY u.display_name ASC
+            ORDER BY LOWER(u.display_name) LIKE :prefixPattern DESC,
+                     similarity(LOWER(u.display_name), :query) DESC,
+                     u.display_name ASC,
+                     u.id ASC
+            LIMIT :limit OFFSET :offset
             """, nativeQuery = true)
     List<UserSummaryProjection> searchUsers(
             @Param("query") String query,
-            @Param("currentUserId") Long currentUserId);
+            @Param("pattern") String pattern,
+            @Param("prefixPattern") String prefixPattern,
+            @Param("currentUserId") Long currentUserId,
+            @Param("limit") int limit,
+            @Param("offset") int offset);
 
-    @Query(value = "SELECT * FROM users u WHERE u.id != :currentUserId AND u.id NOT IN (SELECT uf.user_id FROM user_followers uf WHERE uf.follower_id = :currentUserId) ORDER BY RANDOM() LIMIT 10", nativeQuery = true)
-    List<User> findRandomUsersNotFollowedBy(@Param("currentUserId") Long currentUserId);
+    @Query("SELECT u.id AS id, u.displayName AS displayName FROM User u")
+    Stream<UserNameProjection> streamAllDisplayNames();
 
     @Query(value = """
             SELECT
-              u.id AS id,
-              u.display_name AS displayName,
-              u.profile_url AS profileUrl,
-              u.hobbies::jsonb AS hobbies,
-
-              CASE
-                WHEN uf.follower_id IS NOT NULL THEN 'FOLLOWING'
-                WHEN fr.id IS NOT NULL THEN 'REQUESTED'
-                ELSE 'NONE'
-              END AS relationship
+            u.id AS id,
+            u.display_name AS displayName,
+            u.profile_url AS profileUrl,
+            u.hobbies::jsonb AS hobbies
 
             FROM users u
 
-            LEFT JOIN user_followers uf
-              ON uf.user_id = u.id
-             AND uf.follower_id = :currentUserId
+            WHERE u.id IN (:ids)
+            """, nativeQuery = true)
+    List<UserSummaryProjection> findSummariesByIds(@Param("ids") Collection<Long> ids);
 
-            LEFT JOIN follow_requests fr
-              ON fr.requester_id = :currentUserId
-             AND fr.target_id = u.id
-             AND fr.status = 'PENDING'
+    @Query("SELECT u.id FROM User u")
+    Stream<Long> streamAllIds();
 
-            WHERE u.id != :currentUserId
+    @Query(value = "SELECT uf.user_id FROM user_followers uf WHERE uf.follower_id = :userId", nativeQuery = true)
+    List<Long> findFollowingIds(@Param("userId") Long userId);
 
-            ORDER BY RANDOM()
-            LIMIT 10
+    // Users followed by the people this user follows, ranked by how many of them follow each one.
+    // Both hops are capped and read from idx_user_followers_follower, so the work is bounded
+    // by firstHop * perFirstHop rows however large the neighbourhood is
+    @Query(value = """
+            SELECT
+            f2.user_id AS id,
+            COUNT(*) AS mutuals
+            FROM (
+                SELECT uf.user_id FROM user_followers uf
+                WHERE uf.follower_id = :userId
+                LIMIT :firstHop
+            ) f1
+            CROSS JOIN LATERAL (
+                SELECT uf.user_id FROM user_followers uf
+                WHERE uf.follower_id = f1.user_id
+                LIMIT :perFirstHop
+            ) f2
+            WHERE f2.user_id != :userId
+            AND NOT EXISTS (
+                SELECT 1 FROM user_followers mine
+                WHERE mine.user_id = f2.user_id
+                AND mine.follower_id = :userId
+            )
+            GROUP BY f2.user_id
+            ORDER BY mutuals DESC
+            LIMIT :limit
             """, nativeQuery = true)
-    List<UserSummaryProjection> findSuggestedUsers(
-            @Param("currentUserId") Long currentUserId);
+    List<MutualFollowProjection> findSecondDegreeFollows(@Param("userId") Long userId,
+            @Param("firstHop") int firstHop,
+            @Param("perFirstHop") int perFirstHop,
+            @Param("limit") int limit);
+
+    @Query("""
+            SELECT u.id AS id, u.displayName AS displayName, u.profileUrl AS profileUrl,
+                   u.description AS description, u.hobbies AS hobbies, u.isPrivate AS isPrivate,
+                   u.followersCount AS followersCount, u.followingCount AS followingCount
+            FROM User u
+            WHERE u.id = :id
+            """)
+    Optional<ProfileProjection> findProfileById(@Param("id") Long id);
+
+    // Follow edges are read and written straight on user_followers so the
+    // follower sets are never loaded; its (user_id, follower_id) primary key
+    // makes a repeated insert a no-op
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            INSERT INTO user_followers (user_id, follower_id) VALUES (:targetId, :followerId)
+            ON CONFLICT DO NOTHING
+            """, nativeQuery = true)
+    int insertFollow(@Param("followerId") Long followerId, @Param("targetId") Long targetId);
 
-    @Query("SELECT u FROM User u LEFT JOIN FETCH u.photos WHERE u.email = :email")
-    Optional<User> findUserWithPhotosByEmail(@Param("email") String email);
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM user_followers WHERE user_id = :targetId AND follower_id = :followerId", nativeQuery = true)
+    int deleteFollow(@Param("followerId") Long followerId, @Param("targetId") Long targetId);
+
+    // Moves both counters of one follow edge in a single statement
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            UPDATE users
+            SET followers_count = followers_count + CASE WHEN id = :targetId THEN :delta ELSE 0 END,
+                following_count = following_count + CASE WHEN id = :followerId THEN :delta ELSE 0 END
+            WHERE id IN (:targetId, :followerId)
+            """, nativeQuery = true)
+    int adjustFollowCounts(@Param("followerId") Long followerId, @Param("targetId") Long targetId,
+            @Param("delta") int delta);
 
     @Query(value = """
                 SELECT
                 u.id AS id,
                 u.display_name AS displayName,
                 u.profile_url AS profileUrl,
-                u.hobbies::jsonb AS hobbies,
-                CASE
-                    WHEN uf.follower_id IS NOT NULL THEN 'FOLLOWING'
-                    WHEN fr.id IS NOT NULL THEN 'REQUESTED'
-                    ELSE 'NONE'
-                END AS relationship
+                u.hobbies::jsonb AS hobbies
                 FROM user_followers f
                 JOIN users u ON u.id = f.follower_id
-                LEFT JOIN user_followers uf ON uf.user_id = u.id AND uf.follower_id = :currentUserId
-                LEFT JOIN follow_requests fr ON fr.requester_id = :currentUserId AND fr.target_id = u.id AND fr.status = 'PENDING'
                 WHERE f.user_id = :targetUserId
+                AND f.follower_id > :afterId
+                ORDER BY f.follower_id
+                LIMIT :limit
             """, nativeQuery = true)
     List<UserSummaryProjection> findFollowers(@Param("targetUserId") Long targetUserId,
-            @Param("currentUserId") Long currentUserId);
+            @Param("afterId") Long afterId,
+            @Param("limit") int limit);
+
+    // Keyset page over idx_user_hobbies_hobby (hobby_id, user_id)
+    @Query(value = """
+                SELECT
+                u.id AS id,
+                u.display_name AS displayName,
+                u.profile_url AS profileUrl,
+                u.hobbies::jsonb AS hobbies
+                FROM user_hobbies uh
+                JOIN users u ON u.id = uh.user_id
+                WHERE uh.hobby_id = :hobbyId
+                AND uh.user_id > :afterId
+                AND uh.user_id <> :viewerId
+                ORDER BY uh.user_id
+                LIMIT :limit
+            """, nativeQuery = true)
+    List<UserSummaryProjection> findByHobby(@Param("hobbyId") Long hobbyId,
+            @Param("viewerId") Long viewerId,
+            @Param("afterId") Long afterId,
+            @Param("limit") int limit);
 
     @Query(value = """
                 SELECT
@@ -126,19 +192,16 @@ public interface UserRepository extends JpaRepository<User, Long> {
                 u.id AS id,
                 u.display_name AS displayName,
                 u.profile_url AS profileUrl,
-                u.hobbies::jsonb AS hobbies,
-                CASE
-                    WHEN uf.follower_id IS NOT NULL THEN 'FOLLOWING'
-                    WHEN fr.id IS NOT NULL THEN 'REQUESTED'
-                    ELSE 'NONE'
-                END AS relationship
+                u.hobbies::jsonb AS hobbies
                 FROM user_followers f
                 JOIN users u ON u.id = f.user_id
-                LEFT JOIN user_followers uf ON uf.user_id = u.id AND uf.follower_id = :currentUserId
-                LEFT JOIN follow_requests fr ON fr.requester_id = :currentUserId AND fr.target_id = u.id AND fr.status = 'PENDING'
                 WHERE f.follower_id = :userId
+                AND f.user_id > :afterId
+                ORDER BY f.user_id
+                LIMIT :limit
             """, nativeQuery = true)
     List<UserSummaryProjection> findFollowing(@Param("userId") Long userId,
-            @Param("currentUserId") Long currentUserId);
+            @Param("afterId") Long afterId,
+            @Param("limit") int limit);
 
 }
\ No newline at end of file
@@ -0,0 +1,165 @@
+package HobbyList.example.HobbyList.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import HobbyList.example.HobbyList.dto.MutualFollowProjection;
+import HobbyList.example.HobbyList.repository.UserRepository;
+
+/**
+ * Picks users to suggest on the discovery page.
+ *
+ * Random suggestions come from a periodically refreshed pool of candidate ids,
+ * so no request has to sort the users table. Affinity suggestions rank
+ * candidates by shared hobbies and by how many followed users follow them.
+ */
+@Service
+public class DiscoveryService {
+
+    private static final int HOBBY_WEIGHT = 2;
+    private static final int MUTUAL_WEIGHT = 1;
+
+    private final UserRepository userRepository;
+    private final HobbyAffinityIndex hobbyAffinityIndex;
+    private final FollowGraphCache followGraphCache;
+    private final int maxPoolSize;
+    private final int maxCandidatesPerHobby;
+    private final int maxSecondDegree;
+    private final int maxFirstHop;
+    private final int maxPerFirstHop;
+
+    private volatile long[] candidatePool = new long[0];
+
+    public DiscoveryService(UserRepository userRepository,
+            HobbyAffinityIndex hobbyAffinityIndex,
+            FollowGraphCache followGraphCache,
+            @Value("${discovery.pool.max-size:100000}") int maxPoolSize,
+            @Value("${discovery.affinity.max-candidates-per-hobby:2000}") int maxCandidatesPerHobby,
+            @Value("${discovery.affinity.max-second-degree:500}") int maxSecondDegree,
+            @Value("${discovery.affinity.max-first-hop:200}") int maxFirstHop,
+            @Value("${discovery.affinity.max-per-first-hop:200}") int maxPerFirstHop) {
+        this.userRepository = userRepository;
+        this.hobbyAffinityIndex = hobbyAffinityIndex;
+        this.followGraphCache = followGraphCache;
+        this.maxPoolSize = maxPoolSize;
+        this.maxCandidatesPerHobby = maxCandidatesPerHobby;
+        this.maxSecondDegree = maxSecondDegree;
+        this.maxFirstHop = maxFirstHop;
+        this.maxPerFirstHop = maxPerFirstHop;
+    }
+
+    /**
+     * Returns up to count ids ranked by hobby overlap and second-degree follows.
+     * Falls back to random pool samples when there are not enough candidates.
+     */
+    public long[] recommend(long userId, int count) {
+        RoaringBitmap following = followGraphCache.following(userId);
+
+        Map<Integer, Integer> scores = new HashMap<>();
+        hobbyAffinityIndex.overlapCounts(userId, maxCandidatesPerHobby, following)
+                .forEach((candidate, shared) -> scores.merge(candidate, shared * HOBBY_WEIGHT, Integer::sum));
+        for (MutualFollowProjection row : userRepository.findSecondDegreeFollows(userId, maxFirstHop,
+                maxPerFirstHop, maxSecondDegree)) {
+            scores.merge(Math.toIntExact(row.getId()), (int) (row.getMutuals() * MUTUAL_WEIGHT), Integer::sum);
+        }
+
+        // Shuffle first so candidates with equal scores come out in random order
+        List<Map.Entry<Integer, Integer>> ranked = new ArrayList<>(scores.entrySet());
+        Collections.shuffle(ranked);
+        ranked.sort(Map.Entry.<Integer, Integer>comparingByValue(Comparator.reverseOrder()));
+
+        Set<Long> picked = new HashSet<>();
+        List<Long> result = new ArrayList<>(count);
+        for (Map.Entry<Integer, Integer> entry : ranked) {
+            if (result.size() >= count) {
+                break;
+            }
+            long id = entry.getKey();
+            picked.add(id);
+            result.add(id);
+        }
+        if (result.size() < count) {
+            // Oversample, since ids the user already follows are skipped
+            for (long id : sample(userId, 2 * count)) {
+                if (result.size() >= count) {
+                    break;
+                }
+                if (!following.contains(Math.toIntExact(id)) && picked.add(id)) {
+                    result.add(id);
+                }
+            }
+        }
+        return result.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    // Reservoir-samples the user ids so the pool stays bounded as the table grows
+    @Transactional(readOnly = true)
+    @Scheduled(fixedDelayString = "${discovery.pool.refresh-ms:600000}")
+    public void refreshPool() {
+        long[] reservoir = new long[maxPoolSize];
+        long[] seen = { 0 };
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        try (Stream<Long> ids = userRepository.streamAllIds()) {
+            ids.forEach(id -> {
+                long index = seen[0]++;
+                if (index < maxPoolSize) {
+                    reservoir[(int) index] = id;
+                } else {
+                    long slot = random.nextLong(index + 1);
+                    if (slot < maxPoolSize) {
+                        reservoir[(int) slot] = id;
+                    }
+                }
+            });
+        }
+
+        candidatePool = Arrays.copyOf(reservoir, (int) Math.min(seen[0], maxPoolSize));
+    }
+
+    /**
+     * Draws up to count distinct ids from the pool, never returning excludeId.
+     * Uses Floyd's algorithm, so the cost is O(count) whatever the pool size.
+     */
+    public long[] sample(long excludeId, int count) {
+        long[] pool = candidatePool;
+        int wanted = Math.min(count + 1, pool.length);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        Set<Integer> picked = new HashSet<>();
+        for (int j = pool.length - wanted; j < pool.length; j++) {
+            int candidate = random.nextInt(j + 1);
+            picked.add(picked.contains(candidate) ? j : candidate);
+        }
+
+        long[] sample = picked.stream()
+                .mapToLong(index -> pool[index])
+                .filter(id -> id != excludeId)
+                .limit(count)
+                .toArray();
+
+        // Set iteration order follows the indices, so shuffle the few results we return
+        for (int i = sample.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long tmp = sample[i];
+            sample[i] = sample[j];
+            sample[j] = tmp;
+        }
+        return sample;
+    }
+}
@@ -0,0 +1,90 @@
+package HobbyList.example.HobbyList.service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import HobbyList.example.HobbyList.dto.FollowChangedEvent;
+import HobbyList.example.HobbyList.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Caches the set of ids each user follows as a compressed bitmap, so "does the
+ * viewer follow X" is a bitmap probe instead of a query.
+ *
+ * A user's bitmap is loaded on first use and bounded by total bitmap size, so
+ * cold users are evicted first. FollowService publishes FollowChangedEvent for
+ * every edge it writes and the change is applied once the transaction commits.
+ * Bitmaps are never changed in place: an update swaps in a modified copy, so
+ * readers can probe without locking.
+ */
+@Component
+public class FollowGraphCache {
+
+    private final UserRepository userRepository;
+    private final Cache<Long, RoaringBitmap> following;
+
+    public FollowGraphCache(UserRepository userRepository,
+            MeterRegistry meterRegistry,
+            @Value("${follow.graph-cache.max-weight-bytes:67108864}") long maxWeightBytes) {
+        this.userRepository = userRepository;
+        this.following = Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .<Long, RoaringBitmap>weigher((userId, bitmap) -> bitmap.getSizeInBytes())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, following, "followGraph");
+    }
+
+    // Ids the user follows; treat the returned bitmap as read-only
+    public RoaringBitmap following(long userId) {
+        return following.get(userId, this::load);
+    }
+
+    public boolean isFollowing(long followerId, long targetId) {
+        return following(followerId).contains(Math.toIntExact(targetId));
+    }
+
+    public Set<Long> followedAmong(long followerId, Collection<Long> ids) {
+        RoaringBitmap bitmap = following(followerId);
+        Set<Long> followed = new HashSet<>();
+        for (Long id : ids) {
+            if (bitmap.contains(Math.toIntExact(id))) {
+                followed.add(id);
+            }
+        }
+        return followed;
+    }
+
+    @TransactionalEventListener
+    public void handleFollowChangedEvent(FollowChangedEvent event) {
+        int target = Math.toIntExact(event.targetId());
+        following.asMap().computeIfPresent(event.followerId(), (userId, bitmap) -> {
+            RoaringBitmap updated = bitmap.clone();
+            if (event.following()) {
+                updated.add(target);
+            } else {
+                updated.remove(target);
+            }
+            return updated;
+        });
+    }
+
+    private RoaringBitmap load(long userId) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (Long id : userRepository.findFollowingIds(userId)) {
+            bitmap.add(Math.toIntExact(id));
+        }
+        bitmap.runOptimize();
+        return bitmap;
+    }
+}
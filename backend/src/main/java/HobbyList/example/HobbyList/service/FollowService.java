@@ -1,45 +1,45 @@
 package HobbyList.example.HobbyList.service;
 
+import HobbyList.example.HobbyList.dto.CursorPage;
+import HobbyList.example.HobbyList.dto.FollowChangedEvent;
 import HobbyList.example.HobbyList.dto.UserSummaryDto;
 import HobbyList.example.HobbyList.dto.UserSummaryProjection;
+import HobbyList.example.HobbyList.mapper.UserSummaryMapper;
 import HobbyList.example.HobbyList.model.FollowRequest;
 import HobbyList.example.HobbyList.model.User;
 import HobbyList.example.HobbyList.repository.FollowRequestRepository;
 import HobbyList.example.HobbyList.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 public class FollowService {
 
     private final UserRepository userRepository;
     private final FollowRequestRepository followRequestRepository;
-    private final S3Service s3Service;
-    private final ObjectMapper objectMapper;
+    private final UserSummaryMapper userSummaryMapper;
+    private final FollowGraphCache followGraphCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int defaultPageSize;
+    private final int maxPageSize;
 
     public FollowService(UserRepository userRepository, FollowRequestRepository followRequestRepository,
-            S3Service s3Service, ObjectMapper objectMapper) {
+            UserSummaryMapper userSummaryMapper,
+            FollowGraphCache followGraphCache, ApplicationEventPublisher eventPublisher,
+            @Value("${follow.page-size:50}") int defaultPageSize,
+            @Value("${follow.max-page-size:200}") int maxPageSize) {
         this.userRepository = userRepository;
         this.followRequestRepository = followRequestRepository;
-        this.s3Service = s3Service;
-        this.objectMapper = objectMapper;
-    }
-
-    private String getPresignUrl(String profileUrl) {
-        if (profileUrl == null) {
-            return null;
-        }
-        String bucketName = "hobbylist-photos";
-        String key = profileUrl.substring(profileUrl.indexOf("profile/"));
-        return s3Service.generateDownloadUrl(bucketName, key);
+        this.userSummaryMapper = userSummaryMapper;
+        this.followGraphCache = followGraphCache;
+        this.eventPublisher = eventPublisher;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
     @Transactional
@@ -66,20 +66,18 @@ public class FollowService {
             followRequestRepository.save(request);
         } else {
             // Direct follow
-            target.getFollowers().add(requester);
-            requester.getFollowing().add(target);
-            userRepository.save(target);
-            userRepository.save(requester);
+            if (userRepository.insertFollow(requester.getId(), target.getId()) == 1) {
+                userRepository.adjustFollowCounts(requester.getId(), target.getId(), 1);
+                eventPublisher.publishEvent(new FollowChangedEvent(requester.getId(), target.getId(), true));
+            }
         }
     }
 
     @Transactional
     public void unfollowUser(User requester, User target) {
-        if (isFollowing(requester, target)) {
-            target.getFollowers().remove(requester);
-            requester.getFollowing().remove(target);
-            userRepository.save(target);
-            userRepository.save(requester);
+        if (userRepository.deleteFollow(requester.getId(), target.getId()) == 1) {
+            userRepository.adjustFollowCounts(requester.getId(), target.getId(), -1);
+            eventPublisher.publishEvent(new FollowChangedEvent(requester.getId(), target.getId(), false));
         } else {
             // Check if there is a pending request to cancel
             Optional<FollowRequest> existingRequest = followRequestRepository.findByRequesterAndTarget(requester,
@@ -105,19 +103,13 @@ public class FollowService {
         if (request.getStatus() != FollowRequest.RequestStatus.PENDING) {
             throw new IllegalStateException("Request is not pending");
         }
-        System.out.println("IM HERE");
         request.setStatus(FollowRequest.RequestStatus.ACCEPTED);
         followRequestRepository.save(request);
 
-        try {
-            target.getFollowers().add(requester);
-            requester.getFollowing().add(target);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to accept follow request", e);
+        if (userRepository.insertFollow(requester.getId(), target.getId()) == 1) {
+            userRepository.adjustFollowCounts(requester.getId(), target.getId(), 1);
+            eventPublisher.publishEvent(new FollowChangedEvent(requester.getId(), target.getId(), true));
         }
-
-        userRepository.save(target);
-        userRepository.save(requester);
     }
 
     @Transactional
@@ -134,7 +126,7 @@ public class FollowService {
     }
 
     public boolean isFollowing(User requester, User target) {
-        return target.getFollowers().contains(requester);
+        return followGraphCache.isFollowing(requester.getId(), target.getId());
     }
 
     public boolean isFollowRequested(User requester, User target) {
@@ -143,43 +135,37 @@ public class FollowService {
         return request.isPresent();
     }
 
-    public List<UserSummaryDto> getFollowers(User targetUser, User currentUser) {
-        return userRepository.findFollowers(targetUser.getId(), currentUser.getId()).stream()
-                .map(this::convertToSummaryDto)
-                .collect(Collectors.toList());
+    // Pages are ordered by user id; the cursor is the last id of the previous page
+    public CursorPage<UserSummaryDto> getFollowers(User targetUser, User currentUser, Long cursor, Integer limit) {
+        int pageSize = pageSize(limit);
+        List<UserSummaryProjection> rows = userRepository.findFollowers(targetUser.getId(),
+                cursor != null ? cursor : 0L, pageSize + 1);
+        return toPage(rows, pageSize, currentUser.getId());
     }
 
-    public List<UserSummaryDto> getFollowing(User targetUser, User currentUser) {
-        return userRepository.findFollowing(targetUser.getId(), currentUser.getId()).stream()
-                .map(this::convertToSummaryDto)
-                .collect(Collectors.toList());
+    public CursorPage<UserSummaryDto> getFollowing(User targetUser, User currentUser, Long cursor, Integer limit) {
+        int pageSize = pageSize(limit);
+        List<UserSummaryProjection> rows = userRepository.findFollowing(targetUser.getId(),
+                cursor != null ? cursor : 0L, pageSize + 1);
+        return toPage(rows, pageSize, currentUser.getId());
     }
 
-    public List<UserSummaryDto> getPendingRequests(User target) {
-        return userRepository.findPendingRequests(target.getId()).stream()
-                .map(this::convertToSummaryDto)
-                .collect(Collectors.toList());
+    private int pageSize(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(limit, maxPageSize);
     }
 
-    private UserSummaryDto convertToSummaryDto(UserSummaryProjection user) {
-        List<String> hobbiesList = new ArrayList<>();
-
-        try {
-            if (user.getHobbies() != null) {
-                hobbiesList = objectMapper.readValue(
-                        user.getHobbies(),
-                        new TypeReference<List<String>>() {
-                        });
-            }
-        } catch (Exception e) {
-            System.err.println("Error parsing hobbies for user " + user.getId() + ": " + e.getMessage());
-        }
+    // Rows are fetched with one extra entry to tell whether another page exists
+    private CursorPage<UserSummaryDto> toPage(List<UserSummaryProjection> rows, int pageSize, Long viewerId) {
+        boolean hasMore = rows.size() > pageSize;
+        List<UserSummaryProjection> page = hasMore ? rows.subList(0, pageSize) : rows;
+        Long nextCursor = hasMore ? page.get(page.size() - 1).getId() : null;
+        return new CursorPage<>(userSummaryMapper.toDtos(page, viewerId), nextCursor);
+    }
 
-        return new UserSummaryDto(
-                user.getId(),
-                user.getDisplayName(),
-                getPresignUrl(user.getProfileUrl()),
-                hobbiesList,
-                user.getRelationship());
+    public List<UserSummaryDto> getPendingRequests(User target) {
+        return userSummaryMapper.toDtos(userRepository.findPendingRequests(target.getId()), target.getId());
     }
 }
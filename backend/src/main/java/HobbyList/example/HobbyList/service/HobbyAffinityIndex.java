@@ -0,0 +1,180 @@
+package HobbyList.example.HobbyList.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import HobbyList.example.HobbyList.dto.UserHobbiesChangedEvent;
+import HobbyList.example.HobbyList.dto.UserHobbyProjection;
+import HobbyList.example.HobbyList.repository.HobbyRepository;
+
+/**
+ * Inverted index from hobby to the ids of users who list it.
+ *
+ * Posting lists are compressed bitmaps keyed by the hobby's id in the hobbies
+ * dictionary. The index is loaded from user_hobbies once at startup and then
+ * updated from UserHobbiesChangedEvent, so affinity queries never scan the
+ * users table. Updates that arrive while a load is running are kept aside and
+ * replayed once the loaded maps are swapped in, so none are lost.
+ */
+@Component
+public class HobbyAffinityIndex {
+
+    private static final int[] NO_HOBBIES = new int[0];
+
+    private final HobbyRepository hobbyRepository;
+
+    private final Map<Integer, RoaringBitmap> usersByHobby = new HashMap<>();
+    private final Map<Integer, int[]> hobbiesByUser = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Latest hobbies per user changed during a running load; null when no load runs
+    private Map<Integer, int[]> pendingUpdates;
+
+    public HobbyAffinityIndex(HobbyRepository hobbyRepository) {
+        this.hobbyRepository = hobbyRepository;
+    }
+
+    @Transactional(readOnly = true)
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            pendingUpdates = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Map<Integer, RoaringBitmap> postings = new HashMap<>();
+        Map<Integer, List<Integer>> hobbies = new HashMap<>();
+        try (Stream<UserHobbyProjection> rows = hobbyRepository.streamAllUserHobbies()) {
+            rows.forEach(row -> {
+                int user = Math.toIntExact(row.getUserId());
+                int hobby = Math.toIntExact(row.getHobbyId());
+                postings.computeIfAbsent(hobby, key -> new RoaringBitmap()).add(user);
+                hobbies.computeIfAbsent(user, key -> new ArrayList<>()).add(hobby);
+            });
+        }
+
+        lock.writeLock().lock();
+        try {
+            usersByHobby.clear();
+            postings.forEach((hobby, users) -> {
+                users.runOptimize();
+                usersByHobby.put(hobby, users);
+            });
+            hobbiesByUser.clear();
+            hobbies.forEach((user, ids) -> hobbiesByUser.put(user, ids.stream().mapToInt(Integer::intValue).toArray()));
+            // The stream may have been read before these changes committed
+            pendingUpdates.forEach(this::apply);
+            pendingUpdates = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Runs after commit, so a rolled-back hobby change never reaches the index
+    @TransactionalEventListener(fallbackExecution = true)
+    public void handleUserHobbiesChangedEvent(UserHobbiesChangedEvent event) {
+        update(event.userId(), event.hobbyIds());
+    }
+
+    public void update(long userId, Collection<Long> hobbyIds) {
+        int user = Math.toIntExact(userId);
+        int[] current = hobbyIds.stream().mapToInt(Math::toIntExact).distinct().toArray();
+        lock.writeLock().lock();
+        try {
+            apply(user, current);
+            if (pendingUpdates != null) {
+                pendingUpdates.put(user, current);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Callers hold the write lock
+    private void apply(int user, int[] current) {
+        for (int hobby : hobbiesByUser.getOrDefault(user, NO_HOBBIES)) {
+            RoaringBitmap posting = usersByHobby.get(hobby);
+            posting.remove(user);
+            if (posting.isEmpty()) {
+                usersByHobby.remove(hobby);
+            }
+        }
+        for (int hobby : current) {
+            usersByHobby.computeIfAbsent(hobby, key -> new RoaringBitmap()).add(user);
+        }
+
+        if (current.length == 0) {
+            hobbiesByUser.remove(user);
+        } else {
+            hobbiesByUser.put(user, current);
+        }
+    }
+
+    /**
+     * Collects candidates sharing at least one hobby with the user and returns
+     * how many hobbies each one shares. At most maxPerHobby users are read from
+     * each posting list, starting at a random rank so repeated calls vary.
+     */
+    public Map<Integer, Integer> overlapCounts(long userId, int maxPerHobby, RoaringBitmap excluded) {
+        int user = Math.toIntExact(userId);
+        Map<Integer, Integer> overlaps = new HashMap<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        lock.readLock().lock();
+        try {
+            int[] hobbies = hobbiesByUser.getOrDefault(user, NO_HOBBIES);
+            for (int hobby : hobbies) {
+                RoaringBitmap posting = usersByHobby.get(hobby);
+                int size = posting.getCardinality();
+                if (size == 0) {
+                    continue;
+                }
+
+                int toRead = Math.min(size, maxPerHobby);
+                PeekableIntIterator it = posting.getIntIterator();
+                if (size > maxPerHobby) {
+                    it.advanceIfNeeded(posting.select(random.nextInt(size)));
+                }
+                for (int read = 0; read < toRead; read++) {
+                    if (!it.hasNext()) {
+                        // wrap around to the start of the posting list
+                        it = posting.getIntIterator();
+                    }
+                    int candidate = it.next();
+                    if (candidate != user && !excluded.contains(candidate)) {
+                        overlaps.computeIfAbsent(candidate, key -> sharedHobbies(key, hobbies));
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return overlaps;
+    }
+
+    private int sharedHobbies(int candidate, int[] hobbies) {
+        int shared = 0;
+        for (int hobby : hobbies) {
+            if (usersByHobby.get(hobby).contains(candidate)) {
+                shared++;
+            }
+        }
+        return shared;
+    }
+}
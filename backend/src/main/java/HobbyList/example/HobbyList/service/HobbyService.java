@@ -1,7 +1,17 @@
 package HobbyList.example.HobbyList.service;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import HobbyList.example.HobbyList.dto.UserHobbiesChangedEvent;
+import HobbyList.example.HobbyList.dto.UserUpdatedEvent;
 import HobbyList.example.HobbyList.model.User;
+import HobbyList.example.HobbyList.repository.HobbyRepository;
 import HobbyList.example.HobbyList.repository.UserRepository;
 
 @Service
@@ -10,16 +20,71 @@ public class HobbyService {
     @Autowired
     private UserRepository userRepository;
 
-    public void addHobbyToUser(User user, String hobby) {
+    @Autowired
+    private HobbyRepository hobbyRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Every hobby name is stored trimmed and lowercased; blank names are dropped
+    public static String normalize(String hobby) {
         if (hobby == null || hobby.isBlank()) {
-            return;
+            return null;
         }
+        return hobby.trim().toLowerCase();
+    }
 
-        String normalized = hobby.trim().toLowerCase();
+    public static List<String> normalizeAll(List<String> hobbies) {
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String hobby : hobbies) {
+            String name = normalize(hobby);
+            if (name != null) {
+                normalized.add(name);
+            }
+        }
+        return new ArrayList<>(normalized);
+    }
+
+    @Transactional
+    public void addHobbyToUser(User user, String hobby) {
+        String normalized = normalize(hobby);
+        if (normalized == null) {
+            return;
+        }
 
         if (!user.getHobbies().contains(normalized)) {
-            user.getHobbies().add(normalized);
-            userRepository.save(user);
+            // The caller may hand us the cached principal, so change a managed copy
+            User managed = userRepository.findById(user.getId()).orElse(null);
+            if (managed == null || managed.getHobbies().contains(normalized)) {
+                return;
+            }
+            managed.getHobbies().add(normalized);
+            userRepository.save(managed);
+            syncHobbies(managed);
+            eventPublisher.publishEvent(new UserUpdatedEvent(managed));
+        }
+    }
+
+    /**
+     * Writes the user's hobby list through to the hobbies dictionary and the
+     * user_hobbies join table, then publishes the resolved hobby ids. Call it
+     * in the same transaction that saves the JSON list, after the list has been
+     * normalized.
+     */
+    @Transactional
+    public void syncHobbies(User user) {
+        List<String> names = user.getHobbies();
+        if (names.isEmpty()) {
+            hobbyRepository.clearUserHobbies(user.getId());
+            eventPublisher.publishEvent(new UserHobbiesChangedEvent(user.getId(), List.of()));
+            return;
+        }
+        for (String name : names) {
+            hobbyRepository.insertIfAbsent(name);
         }
+        List<Long> hobbyIds = hobbyRepository.findIdsByNameIn(names);
+        hobbyRepository.retainUserHobbies(user.getId(), hobbyIds);
+        hobbyRepository.addUserHobbies(user.getId(), hobbyIds);
+        eventPublisher.publishEvent(new UserHobbiesChangedEvent(user.getId(), hobbyIds));
     }
 }
@@ -8,7 +8,6 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import HobbyList.example.HobbyList.model.User;
-import HobbyList.example.HobbyList.repository.UserRepository;
 
 import org.springframework.lang.NonNull;
 import jakarta.servlet.FilterChain;
@@ -20,11 +19,11 @@ import jakarta.servlet.http.HttpServletResponse;
 public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
-    private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
 
-    public JwtAuthFilter(JwtService jwtService, UserRepository userRepository) {
+    public JwtAuthFilter(JwtService jwtService, PrincipalCache principalCache) {
         this.jwtService = jwtService;
-        this.userRepository = userRepository;
+        this.principalCache = principalCache;
     }
 
     @Override
@@ -41,12 +40,13 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         }
 
         final String token = authHeader.substring(7);
-        final String email = jwtService.extractEmail(token);
+        final JwtService.VerifiedToken verified = jwtService.verify(token);
+        final String email = verified.subject();
 
         if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            final User user = userRepository.findByEmail(email).orElse(null);
+            final User user = principalCache.get(email);
 
-            if (user != null && jwtService.isTokenValid(token, user)) {
+            if (user != null && jwtService.isTokenValid(verified, user)) {
                 UsernamePasswordAuthenticationToken auth =
                     new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
                 SecurityContextHolder.getContext().setAuthentication(auth);
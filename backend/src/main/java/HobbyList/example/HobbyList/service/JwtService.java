@@ -2,13 +2,21 @@ package HobbyList.example.HobbyList.service;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
 import HobbyList.example.HobbyList.model.User;
 
+import java.time.Duration;
 import java.util.Date;
 
+import javax.crypto.SecretKey;
+
 @Service
 public class JwtService {
     
@@ -19,25 +27,70 @@ public class JwtService {
     @Value("${jwt.expiration:86400000}") // 24 hours in milliseconds
     private long EXPIRATION_TIME;
 
+    @Value("${jwt.token-cache.max-size:10000}")
+    private long tokenCacheSize;
+
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    // Recently verified tokens, kept until the token itself expires
+    private Cache<String, VerifiedToken> verifiedTokens;
+
+    public record VerifiedToken(String subject, Date expiration) {
+        public boolean isExpired() {
+            return expiration != null && expiration.before(new Date());
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+        parser = Jwts.parserBuilder()
+            .setSigningKey(signingKey)
+            .build();
+        verifiedTokens = Caffeine.newBuilder()
+            .maximumSize(tokenCacheSize)
+            .expireAfter(Expiry.creating((String token, VerifiedToken verified) -> verified.expiration() == null
+                ? Duration.ZERO
+                : Duration.ofMillis(Math.max(0, verified.expiration().getTime() - System.currentTimeMillis()))))
+            .build();
+    }
+
     public String generateToken(User user) {
         try {
             return Jwts.builder()
                 .setSubject(user.getEmail())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                .signWith(Keys.hmacShaKeyFor(SECRET_KEY.getBytes()), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
         } catch (Exception e) {
             throw new RuntimeException("Error generating JWT token", e);
         }
     }
 
+    /**
+     * Verifies the token signature once and returns its subject and expiration.
+     * Tokens seen recently are served from the cache without any crypto.
+     */
+    public VerifiedToken verify(String token) {
+        VerifiedToken cached = verifiedTokens.getIfPresent(token);
+        if (cached != null && !cached.isExpired()) {
+            return cached;
+        }
+
+        final Claims claims = extractAllClaims(token);
+        VerifiedToken verified = new VerifiedToken(claims.getSubject(), claims.getExpiration());
+        verifiedTokens.put(token, verified);
+        return verified;
+    }
+
     public String extractEmail(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).subject();
     }
     
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return verify(token).expiration();
     }
 
     public <T> T extractClaim(String token, java.util.function.Function<Claims, T> claimsResolver) {
@@ -47,9 +100,7 @@ public class JwtService {
 
     private Claims extractAllClaims(String token) {
         try {
-            return Jwts.parserBuilder()
-                .setSigningKey(Keys.hmacShaKeyFor(SECRET_KEY.getBytes()))
-                .build()
+            return parser
                 .parseClaimsJws(token)
                 .getBody();
         } catch (ExpiredJwtException e) {
@@ -77,7 +128,10 @@ public class JwtService {
     }
 
     public boolean isTokenValid(String token, User user) {
-        final String email = extractEmail(token);
-        return (email.equals(user.getEmail()) && !isTokenExpired(token));
+        return isTokenValid(verify(token), user);
+    }
+
+    public boolean isTokenValid(VerifiedToken token, User user) {
+        return token.subject().equals(user.getEmail()) && !token.isExpired();
     }
-}
\ No newline at end of file
+}
@@ -1,20 +1,66 @@
 package HobbyList.example.HobbyList.service;
 
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
 import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import HobbyList.example.HobbyList.dto.CursorPage;
+import HobbyList.example.HobbyList.dto.MilestoneBatchOperation;
+import HobbyList.example.HobbyList.dto.MilestoneCompletionProjection;
 import HobbyList.example.HobbyList.dto.MilestoneDto;
+import HobbyList.example.HobbyList.dto.MilestonePhotoTagProjection;
+import HobbyList.example.HobbyList.dto.MilestoneProjection;
+import HobbyList.example.HobbyList.dto.MilestoneQuery;
+import HobbyList.example.HobbyList.model.DataMigration;
 import HobbyList.example.HobbyList.model.Milestone;
+import HobbyList.example.HobbyList.mapper.MilestoneMapper;
 import HobbyList.example.HobbyList.model.Photo;
+import HobbyList.example.HobbyList.model.User;
+import HobbyList.example.HobbyList.repository.DataMigrationRepository;
+import HobbyList.example.HobbyList.repository.PhotoRepository;
 
 @Service
 public class MilestoneService {
+    public static final int MAX_DEPTH = 5;
+    private static final double RATE_EPSILON = 1e-9;
+    private static final String COMPLETION_BACKFILL = "milestone-completion-backfill";
+
     private final HobbyList.example.HobbyList.repository.MilestoneRepository milestoneRepository;
+    private final PhotoRepository photoRepository;
+    private final MilestoneMapper milestoneMapper;
+    private final DataMigrationRepository dataMigrationRepository;
+    private final int defaultPageSize;
+    private final int maxPageSize;
 
-    public MilestoneService(HobbyList.example.HobbyList.repository.MilestoneRepository milestoneRepository) {
+    public MilestoneService(HobbyList.example.HobbyList.repository.MilestoneRepository milestoneRepository,
+            PhotoRepository photoRepository, MilestoneMapper milestoneMapper,
+            DataMigrationRepository dataMigrationRepository,
+            @Value("${milestones.page-size:50}") int defaultPageSize,
+            @Value("${milestones.max-page-size:200}") int maxPageSize) {
         this.milestoneRepository = milestoneRepository;
+        this.photoRepository = photoRepository;
+        this.milestoneMapper = milestoneMapper;
+        this.dataMigrationRepository = dataMigrationRepository;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
     public MilestoneDto toDto(Milestone m) {
@@ -35,84 +81,546 @@ public class MilestoneService {
                 m.getManualState());
     }
 
+    // Root milestones of a user with their full subtrees
+    public List<MilestoneDto> getMilestoneTrees(Long userId) {
+        return roots(loadTree(userId));
+    }
+
+    // Root milestones with the hobby tag and their subtrees; other trees are never read
+    public List<MilestoneDto> getMilestoneTrees(Long userId, String hobbyTag) {
+        if (hobbyTag == null || hobbyTag.isEmpty()) {
+            return getMilestoneTrees(userId);
+        }
+
+        List<MilestoneProjection> rows = milestoneRepository.findTreeRowsByRootHobbyTag(userId, hobbyTag);
+        if (rows.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> ids = rows.stream().map(MilestoneProjection::getId).toList();
+        return roots(buildTree(rows, milestoneRepository.findPhotoTagsByMilestoneIds(ids)));
+    }
+
+    private static List<MilestoneDto> roots(Map<Long, MilestoneDto> tree) {
+        return tree.values().stream()
+                .filter(dto -> dto.parentId() == null)
+                .collect(Collectors.toList());
+    }
+
+    // Every milestone of a user, each with its subtree
+    public List<MilestoneDto> getAllMilestones(Long userId) {
+        return new ArrayList<>(loadTree(userId).values());
+    }
+
+    /**
+     * One keyset page of a user's milestones matching the query. Items are flat:
+     * subMilestones is left empty and children are reached through parentId.
+     */
+    public CursorPage<MilestoneDto> listMilestones(Long userId, MilestoneQuery query, Long cursor, Integer limit) {
+        int pageSize = limit == null || limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+        Limit fetch = Limit.of(pageSize + 1);
+
+        List<MilestoneProjection> rows;
+        if ("dueDate".equals(query.sort())) {
+            OffsetDateTime afterDue = cursor != null ? milestoneRepository.findDueDateById(cursor).orElse(null) : null;
+            rows = milestoneRepository.findPageByDueDate(userId, query.rootsOnly(), query.hobbyTag(),
+                    query.completed(), query.dueAfter(), query.dueBefore(), cursor, afterDue, fetch);
+        } else {
+            rows = milestoneRepository.findPageById(userId, query.rootsOnly(), query.hobbyTag(),
+                    query.completed(), query.dueAfter(), query.dueBefore(), cursor != null ? cursor : 0L, fetch);
+        }
+
+        // Rows are fetched with one extra entry to tell whether another page exists
+        boolean hasMore = rows.size() > pageSize;
+        List<MilestoneProjection> page = hasMore ? rows.subList(0, pageSize) : rows;
+
+        Map<Long, List<Long>> photoIds = new HashMap<>();
+        if (!page.isEmpty()) {
+            List<Long> ids = page.stream().map(MilestoneProjection::getId).toList();
+            for (MilestonePhotoTagProjection tag : milestoneRepository.findPhotoTagsByMilestoneIds(ids)) {
+                photoIds.computeIfAbsent(tag.getMilestoneId(), id -> new ArrayList<>()).add(tag.getPhotoId());
+            }
+        }
+
+        List<MilestoneDto> items = page.stream()
+                .map(row -> toFlatDto(row, photoIds.getOrDefault(row.getId(), new ArrayList<>())))
+                .collect(Collectors.toList());
+        Long nextCursor = hasMore ? page.get(page.size() - 1).getId() : null;
+        return new CursorPage<>(items, nextCursor);
+    }
+
+    // Milestones with no photo tagged, flat, for the photo-tagging picker
+    public List<MilestoneDto> getMilestonesWithoutPhoto(Long userId) {
+        return milestoneRepository.findUntaggedRowsByUserId(userId).stream()
+                .map(row -> toFlatDto(row, new ArrayList<>()))
+                .collect(Collectors.toList());
+    }
+
+    private MilestoneDto toFlatDto(MilestoneProjection row, List<Long> taggedPhotoIds) {
+        return new MilestoneDto(
+                row.getId(),
+                row.getTask(),
+                row.getDueDate(),
+                row.getCompleted(),
+                row.getCompletionRate(),
+                row.getParentId(),
+                new ArrayList<>(),
+                taggedPhotoIds,
+                row.getHobbyTag(),
+                row.getManualState());
+    }
+
+    /**
+     * Loads all of a user's milestones and photo tags with two queries and
+     * builds the dto tree in memory. The result is keyed by id in id order.
+     */
+    private Map<Long, MilestoneDto> loadTree(Long userId) {
+        return buildTree(milestoneRepository.findRowsByUserId(userId),
+                milestoneRepository.findPhotoTagsByUserId(userId));
+    }
+
+    private Map<Long, MilestoneDto> buildTree(List<MilestoneProjection> rows, List<MilestonePhotoTagProjection> tags) {
+        Map<Long, List<Long>> photoIds = new HashMap<>();
+        for (MilestonePhotoTagProjection tag : tags) {
+            photoIds.computeIfAbsent(tag.getMilestoneId(), id -> new ArrayList<>()).add(tag.getPhotoId());
+        }
+
+        Map<Long, List<MilestoneProjection>> children = new HashMap<>();
+        for (MilestoneProjection row : rows) {
+            if (row.getParentId() != null) {
+                children.computeIfAbsent(row.getParentId(), id -> new ArrayList<>()).add(row);
+            }
+        }
+
+        Map<Long, MilestoneDto> built = new HashMap<>();
+        Map<Long, MilestoneDto> result = new LinkedHashMap<>();
+        for (MilestoneProjection row : rows) {
+            result.put(row.getId(), build(row, children, photoIds, built));
+        }
+        return result;
+    }
+
+    private MilestoneDto build(MilestoneProjection row, Map<Long, List<MilestoneProjection>> children,
+            Map<Long, List<Long>> photoIds, Map<Long, MilestoneDto> built) {
+        MilestoneDto existing = built.get(row.getId());
+        if (existing != null) {
+            return existing;
+        }
+
+        List<MilestoneDto> subMilestones = children.getOrDefault(row.getId(), List.of()).stream()
+                .map(child -> build(child, children, photoIds, built))
+                .collect(Collectors.toList());
+        MilestoneDto dto = new MilestoneDto(
+                row.getId(),
+                row.getTask(),
+                row.getDueDate(),
+                row.getCompleted(),
+                row.getCompletionRate(),
+                row.getParentId(),
+                subMilestones,
+                photoIds.getOrDefault(row.getId(), new ArrayList<>()),
+                row.getHobbyTag(),
+                row.getManualState());
+        built.put(row.getId(), dto);
+        return dto;
+    }
+
+    @Transactional
     public void markMilestoneComplete(Long id) {
-        Milestone m = milestoneRepository.findById(id).orElse(null);
-        if (m == null)
+        String path = milestoneRepository.findPathById(id).orElse(null);
+        if (path == null)
             return;
 
-        m.setManualState("complete");
-        m.setCompleted(true);
-        m.setCompletionRate(1.0);
-        milestoneRepository.save(m);
+        // completeSubtree overwrites the rate, so the parent's delta is taken from the rate before it
+        Double previousRate = milestoneRepository.findCompletionRateById(id).orElse(0.0);
+        if (milestoneRepository.completeSubtree(path) == 0)
+            return;
 
-        markChildrenComplete(m);
-        updateParentsCompletion(m.getParent());
+        propagateCompletion(id, previousRate);
     }
 
+    @Transactional
     public void markMilestoneIncomplete(Long id) {
-        Milestone m = milestoneRepository.findById(id).orElse(null);
-        if (m == null)
+        if (milestoneRepository.markIncomplete(id) == 0)
             return;
 
-        m.setManualState("incomplete");
-        m.setCompleted(false);
+        propagateCompletion(id);
+    }
+
+    @Transactional
+    public void updateParentsCompletion(Milestone parent) {
+        if (parent == null)
+            return;
+
+        propagateCompletion(parent.getId());
+    }
+
+    // Gives a newly saved milestone its path and registers it with its parent's aggregates
+    @Transactional
+    public void milestoneCreated(Milestone milestone) {
+        milestoneRepository.assignPaths(List.of(milestone.getId()));
+        childAdded(milestone);
+    }
 
-        List<Milestone> children = m.getSubMilestones();
-        if (children == null || children.isEmpty()) {
-            m.setCompletionRate(0.0);
+    /**
+     * Deletes a milestone with its whole subtree and photo tags, then updates the
+     * parent. A row the path backfill has not reached yet has no path to match
+     * on, so it is removed through the entity instead, which cascades over
+     * subMilestones and the photo join rows.
+     */
+    @Transactional
+    public void deleteSubtree(Milestone milestone) {
+        Milestone parent = milestone.getParent();
+        Long parentId = parent != null ? parent.getId() : null;
+        if (milestone.getPath() != null) {
+            milestoneRepository.deletePhotoTagsUnder(milestone.getPath());
+            milestoneRepository.deleteSubtree(milestone.getPath());
         } else {
-            double sum = children.stream().mapToDouble(Milestone::getCompletionRate).sum();
-            m.setCompletionRate(sum / children.size());
+            if (parent != null) {
+                // Otherwise the parent's cascade would persist the removed child again
+                parent.getSubMilestones().removeIf(child -> Objects.equals(child.getId(), milestone.getId()));
+            }
+            milestoneRepository.delete(milestone);
+        }
+        childRemoved(parentId, milestone.getCompletionRate());
+    }
+
+    private void childAdded(Milestone child) {
+        if (child.getParent() == null)
+            return;
+
+        milestoneRepository.adjustChildAggregates(child.getParent().getId(), 1, child.getCompletionRate());
+        propagateCompletion(child.getParent().getId());
+    }
+
+    private void childRemoved(Long parentId, double completionRate) {
+        if (parentId == null)
+            return;
+
+        milestoneRepository.adjustChildAggregates(parentId, -1, -completionRate);
+        propagateCompletion(parentId);
+    }
+
+    /**
+     * Follows up an update that may have changed the parent. On a reparent the
+     * subtree's paths and depths are rewritten in one statement and the child's
+     * contribution moves from the old parent's aggregates to the new one's.
+     */
+    @Transactional
+    public void childMoved(Milestone child, Long oldParentId) {
+        Milestone parent = child.getParent();
+        Long newParentId = parent != null ? parent.getId() : null;
+        if (Objects.equals(oldParentId, newParentId)) {
+            updateParentsCompletion(parent);
+            return;
+        }
+
+        String newPrefix = (parent != null ? parent.getPath() : "/") + child.getId() + "/";
+        int newDepth = parent != null ? parent.getDepth() + 1 : 0;
+        milestoneRepository.movePath(child.getPath(), newPrefix, newDepth - child.getDepth());
+
+        childRemoved(oldParentId, child.getCompletionRate());
+        childAdded(child);
+    }
+
+    /**
+     * Applies a list of operations in one transaction: all creates first (in
+     * request order, so a parent precedes its children), then field updates,
+     * then completion changes. Existing milestones are loaded and checked for
+     * ownership once, inserts go out together, and completion is rebuilt once
+     * per affected node at the end. A complete covers its whole subtree, so
+     * completes below another complete in the batch are skipped and an
+     * incomplete below one is rejected. Any invalid operation rolls back the
+     * whole batch. Returns the ids assigned to each create's tempId.
+     */
+    @Transactional
+    public Map<String, Long> applyBatch(User user, List<MilestoneBatchOperation> operations) {
+        Set<Long> referencedIds = new HashSet<>();
+        Set<Long> photoIds = new HashSet<>();
+        for (MilestoneBatchOperation op : operations) {
+            if (op.type() == null) {
+                throw new IllegalArgumentException("Every operation needs a type.");
+            }
+            if (op.id() != null) {
+                referencedIds.add(op.id());
+            }
+            if (op.milestone() != null) {
+                if (op.milestone().parentId() != null) {
+                    referencedIds.add(op.milestone().parentId());
+                }
+                if (op.milestone().taggedPhotoIds() != null) {
+                    photoIds.addAll(op.milestone().taggedPhotoIds());
+                }
+            }
+        }
+
+        Map<Long, Milestone> existing = milestoneRepository.findAllById(referencedIds).stream()
+                .collect(Collectors.toMap(Milestone::getId, Function.identity()));
+        for (Long id : referencedIds) {
+            Milestone m = existing.get(id);
+            if (m == null) {
+                throw new IllegalArgumentException("Milestone " + id + " not found.");
+            }
+            if (m.getUser() == null || m.getUser().getId() != user.getId()) {
+                throw new IllegalStateException("Milestone " + id + " does not belong to user.");
+            }
+        }
+        Map<Long, Photo> photos = photoRepository.findAllById(photoIds).stream()
+                .collect(Collectors.toMap(Photo::getId, Function.identity()));
+
+        Map<String, Milestone> createdByTempId = new LinkedHashMap<>();
+        List<Milestone> created = new ArrayList<>();
+        // Milestone id -> depth; Milestone's Lombok hashCode walks the tree, so key by id
+        Map<Long, Integer> propagateFrom = new HashMap<>();
+
+        for (MilestoneBatchOperation op : operations) {
+            if (!"create".equals(op.type())) {
+                continue;
+            }
+            MilestoneDto req = op.milestone();
+            if (req == null) {
+                throw new IllegalArgumentException("Create operations need a milestone.");
+            }
+
+            Milestone parent = null;
+            if (op.parentTempId() != null) {
+                parent = createdByTempId.get(op.parentTempId());
+                if (parent == null) {
+                    throw new IllegalArgumentException("Unknown parent temp id " + op.parentTempId() + ".");
+                }
+            } else if (req.parentId() != null) {
+                parent = existing.get(req.parentId());
+            }
+            if (parent != null && parent.getDepth() >= MAX_DEPTH) {
+                throw new IllegalArgumentException("Cannot create subtask: parent depth >= " + MAX_DEPTH + ".");
+            }
+
+            Milestone m = new Milestone();
+            m.setTask(req.task());
+            m.setDueDate(req.dueDate());
+            m.setUser(user);
+            m.setDateCreated(LocalDateTime.now());
+            m.setHobbyTag(req.hobbyTag());
+            m.setParent(parent);
+            m.setDepth(parent != null ? parent.getDepth() + 1 : 0);
+            m.setTaggedPhotos(req.taggedPhotoIds() != null
+                    ? req.taggedPhotoIds().stream().map(photos::get).filter(Objects::nonNull)
+                            .collect(Collectors.toList())
+                    : new ArrayList<>());
+
+            if (op.tempId() != null && createdByTempId.put(op.tempId(), m) != null) {
+                throw new IllegalArgumentException("Duplicate temp id " + op.tempId() + ".");
+            }
+            created.add(m);
+        }
+
+        if (!created.isEmpty()) {
+            milestoneRepository.saveAll(created);
+
+            Map<Integer, List<Long>> idsByDepth = new TreeMap<>();
+            for (Milestone m : created) {
+                idsByDepth.computeIfAbsent(m.getDepth(), depth -> new ArrayList<>()).add(m.getId());
+                if (m.getParent() != null) {
+                    propagateFrom.put(m.getParent().getId(), m.getParent().getDepth());
+                }
+            }
+            idsByDepth.values().forEach(milestoneRepository::assignPaths);
+        }
+
+        for (MilestoneBatchOperation op : operations) {
+            if (!"update".equals(op.type())) {
+                continue;
+            }
+            Milestone m = requireExisting(existing, op);
+            MilestoneDto req = op.milestone();
+            if (req == null) {
+                throw new IllegalArgumentException("Update operations need a milestone.");
+            }
+            Long parentId = m.getParent() != null ? m.getParent().getId() : null;
+            if (req.parentId() != null && !req.parentId().equals(parentId)) {
+                throw new IllegalArgumentException(
+                        "Milestones cannot be moved in a batch; use PATCH /api/milestones/" + m.getId() + ".");
+            }
+
+            milestoneMapper.updateMilestoneFromDto(req, m);
+            if (m.getParent() != null) {
+                propagateFrom.put(m.getParent().getId(), m.getParent().getDepth());
+            }
+        }
+
+        // Conflicts are rejected before any completion change is written
+        List<String> completedPaths = operations.stream()
+                .filter(op -> "complete".equals(op.type()))
+                .map(op -> requireExisting(existing, op).getPath())
+                .filter(Objects::nonNull)
+                .toList();
+        for (MilestoneBatchOperation op : operations) {
+            if ("incomplete".equals(op.type())
+                    && isCoveredByComplete(completedPaths, requireExisting(existing, op).getPath(), true)) {
+                throw new IllegalArgumentException(
+                        "Milestone " + op.id() + " is also completed by another operation in this batch.");
+            }
         }
 
-        milestoneRepository.save(m);
-        updateParentsCompletion(m.getParent());
+        for (MilestoneBatchOperation op : operations) {
+            if ("complete".equals(op.type())) {
+                Milestone m = requireExisting(existing, op);
+                if (isCoveredByComplete(completedPaths, m.getPath(), false)) {
+                    continue;
+                }
+                milestoneRepository.completeSubtree(m.getPath());
+                propagateFrom.put(m.getId(), m.getDepth());
+            } else if ("incomplete".equals(op.type())) {
+                Milestone m = requireExisting(existing, op);
+                milestoneRepository.markIncomplete(m.getId());
+                propagateFrom.put(m.getId(), m.getDepth());
+            } else if (!"create".equals(op.type()) && !"update".equals(op.type())) {
+                throw new IllegalArgumentException("Unknown operation type " + op.type() + ".");
+            }
+        }
+
+        rebuildCompletion(propagateFrom);
+
+        Map<String, Long> createdIds = new LinkedHashMap<>();
+        createdByTempId.forEach((tempId, m) -> createdIds.put(tempId, m.getId()));
+        return createdIds;
     }
 
-    private void markChildrenComplete(Milestone m) {
-        if (m.getSubMilestones() != null) {
-            for (Milestone child : m.getSubMilestones()) {
-                child.setManualState("none");
-                child.setCompleted(true);
-                child.setCompletionRate(1.0);
-                milestoneRepository.save(child);
-                markChildrenComplete(child);
+    // Whether a batch complete targets an ancestor of the path, or with includeSelf the path itself
+    private static boolean isCoveredByComplete(List<String> completedPaths, String path, boolean includeSelf) {
+        if (path == null) {
+            return false;
+        }
+        for (String completed : completedPaths) {
+            if (path.startsWith(completed) && (includeSelf || !path.equals(completed))) {
+                return true;
             }
         }
+        return false;
     }
 
-    public void updateParentsCompletion(Milestone parent) {
-        if (parent == null)
+    private Milestone requireExisting(Map<Long, Milestone> existing, MilestoneBatchOperation op) {
+        if (op.id() == null) {
+            throw new IllegalArgumentException("Operation " + op.type() + " needs an id.");
+        }
+        return existing.get(op.id());
+    }
+
+    // Whether the candidate is the milestone itself or one of its descendants
+    public boolean isInSubtree(Milestone milestone, Milestone candidate) {
+        return candidate.getPath() != null && milestone.getPath() != null
+                && candidate.getPath().startsWith(milestone.getPath());
+    }
+
+    // Levels below the milestone, 0 for a leaf
+    public int subtreeHeight(Milestone milestone) {
+        return milestoneRepository.findMaxDepthUnder(milestone.getPath()) - milestone.getDepth();
+    }
+
+    /**
+     * One-time backfill of child aggregates and completion on existing rows,
+     * level by level from the deepest up. Writes keep the aggregates current
+     * afterwards, so it is recorded in data_migrations and skipped from then on.
+     */
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillAggregates() {
+        if (dataMigrationRepository.existsById(COMPLETION_BACKFILL))
             return;
 
-        List<Milestone> children = parent.getSubMilestones();
-        double avgRate = 0.0;
-        if (children != null && !children.isEmpty()) {
-            double sum = children.stream().mapToDouble(Milestone::getCompletionRate).sum();
-            avgRate = sum / children.size();
-        } else {
-            avgRate = parent.isCompleted() ? 1.0 : 0.0;
-        }
-
-        String state = parent.getManualState();
-        if ("incomplete".equals(state)) {
-            parent.setCompleted(false);
-            parent.setCompletionRate(avgRate);
-        } else if ("complete".equals(state)) {
-            if (children != null && !children.isEmpty() && avgRate < 1.0) {
-                parent.setManualState("none");
-                parent.setCompleted(false);
-                parent.setCompletionRate(avgRate);
+        for (int depth = milestoneRepository.findMaxDepth(); depth >= 0; depth--) {
+            milestoneRepository.recomputeCompletionAtDepth(depth);
+        }
+        dataMigrationRepository.save(new DataMigration(COMPLETION_BACKFILL));
+    }
+
+    /**
+     * Rebuilds completion for the given milestones (id -> depth) and all of
+     * their ancestors from the stored child rows, one level at a time from the
+     * deepest up. Batch changes can share ancestors, so adding up each change's
+     * delta along its chain would count the shared part more than once.
+     */
+    private void rebuildCompletion(Map<Long, Integer> milestones) {
+        Map<Integer, Set<Long>> idsByDepth = new TreeMap<>(Comparator.reverseOrder());
+        Set<Long> collected = new HashSet<>();
+        List<Map.Entry<Long, Integer>> deepestFirst = milestones.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed())
+                .toList();
+        for (Map.Entry<Long, Integer> entry : deepestFirst) {
+            // An earlier, deeper chain may already run through this milestone
+            if (collected.contains(entry.getKey())) {
+                continue;
+            }
+            List<MilestoneCompletionProjection> chain = milestoneRepository.findAncestorChain(entry.getKey());
+            // The chain is nearest first and ends at the root
+            for (int i = 0; i < chain.size(); i++) {
+                Long id = chain.get(i).getId();
+                collected.add(id);
+                idsByDepth.computeIfAbsent(chain.size() - 1 - i, depth -> new HashSet<>()).add(id);
+            }
+        }
+        idsByDepth.values().forEach(milestoneRepository::recomputeCompletion);
+    }
+
+    /**
+     * Recomputes completion for a milestone and each of its ancestors. The chain
+     * is read in one query, each level is worked out from its stored child
+     * aggregates plus the change made to the level below, and only rows that
+     * actually change are written back.
+     */
+    private void propagateCompletion(Long id) {
+        propagateCompletion(id, null);
+    }
+
+    // previousRate, when set, is the rate the milestone had before a bulk write overwrote it
+    private void propagateCompletion(Long id, Double previousRate) {
+        List<MilestoneCompletionProjection> chain = milestoneRepository.findAncestorChain(id);
+
+        double childDelta = 0.0;
+        for (MilestoneCompletionProjection node : chain) {
+            boolean completed = Boolean.TRUE.equals(node.getCompleted());
+            double oldRate = node.getCompletionRate() != null ? node.getCompletionRate() : 0.0;
+            if (previousRate != null && node.getId().equals(id)) {
+                oldRate = previousRate;
+            }
+            String state = node.getManualState();
+
+            boolean hasChildren = node.getChildCount() > 0;
+            double avgRate = hasChildren
+                    ? roundRate((node.getChildRateSum() + childDelta) / node.getChildCount())
+                    : (completed ? 1.0 : 0.0);
+
+            double rate;
+            if ("incomplete".equals(state)) {
+                completed = false;
+                rate = avgRate;
+            } else if ("complete".equals(state)) {
+                if (hasChildren && avgRate < 1.0) {
+                    state = "none";
+                    completed = false;
+                    rate = avgRate;
+                } else {
+                    completed = true;
+                    rate = 1.0;
+                }
             } else {
-                parent.setCompleted(true);
-                parent.setCompletionRate(1.0);
+                rate = avgRate;
+                completed = avgRate >= 1.0;
             }
-        } else {
-            parent.setCompletionRate(avgRate);
-            parent.setCompleted(avgRate >= 1.0);
+
+            if (childDelta != 0.0 || completed != Boolean.TRUE.equals(node.getCompleted()) || rate != oldRate
+                    || !Objects.equals(state, node.getManualState())) {
+                milestoneRepository.updateCompletion(node.getId(), completed, rate, state, childDelta);
+            }
+            childDelta = rate - oldRate;
         }
+    }
 
-        milestoneRepository.save(parent);
-        updateParentsCompletion(parent.getParent());
+    // Incremental sums pick up floating-point noise; snap it away at the ends
+    private static double roundRate(double rate) {
+        if (rate > 1.0 - RATE_EPSILON)
+            return 1.0;
+        if (rate < RATE_EPSILON)
+            return 0.0;
+        return rate;
     }
 }
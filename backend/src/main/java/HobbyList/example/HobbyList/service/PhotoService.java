@@ -1,12 +1,18 @@
 package HobbyList.example.HobbyList.service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
 
 import HobbyList.example.HobbyList.model.Milestone;
 import HobbyList.example.HobbyList.model.Photo;
+import HobbyList.example.HobbyList.dto.MilestonePhotoTagProjection;
 import HobbyList.example.HobbyList.dto.PhotoDto;
+import HobbyList.example.HobbyList.dto.PhotoProjection;
 import HobbyList.example.HobbyList.repository.PhotoRepository;
 
 @Service
@@ -41,7 +47,42 @@ public class PhotoService {
     }
 
     public PhotoDto toDto(Photo photo, String imageUrl) {
-        String preSignedUrl = s3Service.generateDownloadUrl("hobbylist-photos", imageUrl.substring(imageUrl.indexOf("photos/")));
+        String preSignedUrl = s3Service.generateDownloadUrl("hobbylist-photos", photoKey(imageUrl));
+        return buildDto(photo, preSignedUrl);
+    }
+
+    // A user's photos read as flat rows and presigned in one batch; galleryOnly
+    // leaves out profile pictures
+    public List<PhotoDto> getUserPhotos(Long userId, boolean galleryOnly) {
+        List<PhotoProjection> rows = photoRepository.findRowsByUserId(userId, galleryOnly);
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, List<Long>> milestoneIds = new HashMap<>();
+        for (MilestonePhotoTagProjection tag : photoRepository
+                .findMilestoneTagsByPhotoIds(rows.stream().map(PhotoProjection::getId).toList())) {
+            milestoneIds.computeIfAbsent(tag.getPhotoId(), id -> new ArrayList<>()).add(tag.getMilestoneId());
+        }
+
+        Map<String, String> urls = s3Service.generateDownloadUrls("hobbylist-photos",
+                rows.stream().map(row -> photoKey(row.getImageUrl())).toList());
+        return rows.stream()
+                .map(row -> new PhotoDto(
+                        row.getId(),
+                        row.getTopic(),
+                        urls.get(photoKey(row.getImageUrl())),
+                        row.getDescription(),
+                        row.getUploadDate(),
+                        milestoneIds.getOrDefault(row.getId(), new ArrayList<>())))
+                .toList();
+    }
+
+    private static String photoKey(String imageUrl) {
+        return imageUrl.substring(imageUrl.indexOf("photos/"));
+    }
+
+    private PhotoDto buildDto(Photo photo, String preSignedUrl) {
         return new PhotoDto(
             photo.getId(),
             photo.getTopic(),
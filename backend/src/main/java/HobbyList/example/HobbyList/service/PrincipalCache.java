@@ -0,0 +1,93 @@
+package HobbyList.example.HobbyList.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import HobbyList.example.HobbyList.dto.UserUpdatedEvent;
+import HobbyList.example.HobbyList.model.User;
+import HobbyList.example.HobbyList.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Caches the authenticated user by token subject (email) so the JWT filter does
+ * not hit the database on every request.
+ *
+ * The cache holds immutable snapshots of the user's columns and every lookup
+ * gets its own detached User built from one, so requests never share an
+ * instance. Collections are left empty; reload the user by id before reading
+ * them or changing and saving it. Entries are dropped once the transaction
+ * that updated the user commits, so a concurrent lookup cannot re-cache the
+ * old row.
+ */
+@Component
+public class PrincipalCache {
+
+    private final UserRepository userRepository;
+    private final Cache<String, Snapshot> cache;
+
+    private record Snapshot(long id, String firstname, String lastname, String displayName, String email,
+            String password, String role, boolean active, String profileUrl,
+            String description, boolean isPrivate, boolean newAccount, List<String> hobbies,
+            int followersCount, int followingCount) {
+
+        static Snapshot of(User user) {
+            return new Snapshot(user.getId(), user.getFirstname(), user.getLastname(), user.getDisplayName(),
+                    user.getEmail(), user.getPassword(), user.getRole(), user.isActive(),
+                    user.getProfileUrl(), user.getDescription(), user.isPrivate(), user.isNewAccount(),
+                    user.getHobbies() != null ? Collections.unmodifiableList(new ArrayList<>(user.getHobbies())) : List.of(),
+                    user.getFollowersCount(), user.getFollowingCount());
+        }
+
+        User toUser() {
+            User user = new User(id, firstname, lastname, displayName, email, password, role);
+            user.setActive(active);
+            user.setProfileUrl(profileUrl);
+            user.setDescription(description);
+            user.setPrivate(isPrivate);
+            user.setNewAccount(newAccount);
+            user.setHobbies(new ArrayList<>(hobbies));
+            user.setFollowersCount(followersCount);
+            user.setFollowingCount(followingCount);
+            return user;
+        }
+    }
+
+    public PrincipalCache(UserRepository userRepository,
+            MeterRegistry meterRegistry,
+            @Value("${jwt.principal-cache.max-size:10000}") long maxSize,
+            @Value("${jwt.principal-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "principals");
+    }
+
+    public User get(String email) {
+        Snapshot snapshot = cache.get(email, key -> userRepository.findByEmail(key).map(Snapshot::of).orElse(null));
+        return snapshot != null ? snapshot.toUser() : null;
+    }
+
+    public void invalidate(String email) {
+        if (email != null) {
+            cache.invalidate(email);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void handleUserUpdatedEvent(UserUpdatedEvent event) {
+        invalidate(event.user().getEmail());
+    }
+}
@@ -0,0 +1,59 @@
+package HobbyList.example.HobbyList.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.stereotype.Component;
+
+import HobbyList.example.HobbyList.repository.FollowRequestRepository;
+
+/**
+ * Works out how a viewer relates to a set of users: FOLLOWING, REQUESTED or
+ * NONE. Follows are probed in the viewer's cached bitmap; only the candidates
+ * not followed are checked for pending requests, with one indexed IN lookup.
+ * Every summary list and the profile view share these rules.
+ */
+@Component
+public class RelationshipResolver {
+    public static final String FOLLOWING = "FOLLOWING";
+    public static final String REQUESTED = "REQUESTED";
+    public static final String NONE = "NONE";
+
+    private final FollowGraphCache followGraphCache;
+    private final FollowRequestRepository followRequestRepository;
+
+    public RelationshipResolver(FollowGraphCache followGraphCache, FollowRequestRepository followRequestRepository) {
+        this.followGraphCache = followGraphCache;
+        this.followRequestRepository = followRequestRepository;
+    }
+
+    public Map<Long, String> resolve(Long viewerId, Collection<Long> candidateIds) {
+        Map<Long, String> relationships = new HashMap<>();
+        if (candidateIds.isEmpty()) {
+            return relationships;
+        }
+
+        Set<Long> followed = followGraphCache.followedAmong(viewerId, candidateIds);
+        List<Long> notFollowed = candidateIds.stream().filter(id -> !followed.contains(id)).toList();
+        Set<Long> requested = notFollowed.isEmpty() ? Set.of()
+                : new HashSet<>(followRequestRepository.findPendingTargetsAmong(viewerId, notFollowed));
+        for (Long id : candidateIds) {
+            if (followed.contains(id)) {
+                relationships.put(id, FOLLOWING);
+            } else if (requested.contains(id)) {
+                relationships.put(id, REQUESTED);
+            } else {
+                relationships.put(id, NONE);
+            }
+        }
+        return relationships;
+    }
+
+    public String resolve(Long viewerId, Long candidateId) {
+        return resolve(viewerId, List.of(candidateId)).get(candidateId);
+    }
+}
@@ -1,21 +1,66 @@
 package HobbyList.example.HobbyList.service;
 
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
 
 import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
 @Service
 public class S3Service {
+    // Batches with more misses than this are signed in parallel
+    private static final int PARALLEL_SIGNING_THRESHOLD = 32;
+
     private final S3Presigner presigner;
+    private final AwsCredentialsProvider credentialsProvider;
+
+    // Download URLs are reused until safetyMargin before they expire, so a
+    // client never receives a link that is about to stop working.
+    private final Cache<ObjectLocation, PresignedUrl> downloadUrls;
+    private final Duration safetyMargin;
+
+    private record ObjectLocation(String bucket, String key) {}
 
-    public S3Service(S3Presigner presigner) {
+    private record PresignedUrl(String url, Instant expiresAt) {}
+
+    public S3Service(S3Presigner presigner,
+            AwsCredentialsProvider credentialsProvider,
+            MeterRegistry meterRegistry,
+            @Value("${s3.presign-cache.max-size:50000}") long maxSize,
+            @Value("${s3.presign-cache.safety-margin-seconds:60}") long safetyMarginSeconds) {
         this.presigner = presigner;
+        this.credentialsProvider = credentialsProvider;
+        this.safetyMargin = Duration.ofSeconds(safetyMarginSeconds);
+        this.downloadUrls = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(Expiry.creating((ObjectLocation location, PresignedUrl url) -> reuseWindow(url)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, downloadUrls, "presignedUrls");
     }
 
     public String generateUploadUrl(String bucketName, String key, String contentType) {
@@ -34,9 +79,45 @@ public class S3Service {
     }
 
     public String generateDownloadUrl(String bucketName, String imageURL) {
+        return downloadUrls.get(new ObjectLocation(bucketName, imageURL),
+                location -> presignDownload(location, credentialsProvider)).url();
+    }
+
+    /**
+     * Presigns every key in one pass and returns the URLs keyed by object key.
+     * Cached URLs are reused; the misses share a single credential resolution
+     * and are spread across cores when the batch is large.
+     */
+    public Map<String, String> generateDownloadUrls(String bucketName, Collection<String> keys) {
+        Set<ObjectLocation> locations = keys.stream()
+                .map(key -> new ObjectLocation(bucketName, key))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (locations.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<ObjectLocation, PresignedUrl> presigned = downloadUrls.getAll(locations, this::presignDownloads);
+
+        Map<String, String> urls = new HashMap<>(presigned.size() * 2);
+        presigned.forEach((location, url) -> urls.put(location.key(), url.url()));
+        return urls;
+    }
+
+    private Map<ObjectLocation, PresignedUrl> presignDownloads(Set<? extends ObjectLocation> locations) {
+        // Resolve credentials once instead of once per signature
+        AwsCredentialsProvider resolved = StaticCredentialsProvider.create(credentialsProvider.resolveCredentials());
+
+        Stream<? extends ObjectLocation> stream = locations.size() > PARALLEL_SIGNING_THRESHOLD
+                ? locations.parallelStream()
+                : locations.stream();
+        return stream.collect(Collectors.toMap(Function.identity(), location -> presignDownload(location, resolved)));
+    }
+
+    private PresignedUrl presignDownload(ObjectLocation location, AwsCredentialsProvider credentials) {
         GetObjectRequest objectRequest = GetObjectRequest.builder()
-                .bucket(bucketName)
-                .key(imageURL)
+                .bucket(location.bucket())
+                .key(location.key())
+                .overrideConfiguration(config -> config.credentialsProvider(credentials))
                 .build();
 
         GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
@@ -44,6 +125,12 @@ public class S3Service {
                 .getObjectRequest(objectRequest)
                 .build();
 
-        return presigner.presignGetObject(presignRequest).url().toString();
+        PresignedGetObjectRequest presigned = presigner.presignGetObject(presignRequest);
+        return new PresignedUrl(presigned.url().toString(), presigned.expiration());
+    }
+
+    private Duration reuseWindow(PresignedUrl url) {
+        Duration window = Duration.between(Instant.now(), url.expiresAt()).minus(safetyMargin);
+        return window.isNegative() ? Duration.ZERO : window;
     }
 }
@@ -0,0 +1,221 @@
+package HobbyList.example.HobbyList.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import HobbyList.example.HobbyList.dto.UserNameProjection;
+import HobbyList.example.HobbyList.dto.UserUpdatedEvent;
+import HobbyList.example.HobbyList.repository.UserRepository;
+
+/**
+ * In-memory prefix index over display names for type-ahead search.
+ *
+ * Every word of a display name, and the full name itself, is a key in a sorted
+ * map whose value is a sorted primitive array of user ids. A prefix lookup is a range
+ * scan over that map, so short queries are answered without touching Postgres.
+ */
+@Component
+public class UserSearchIndex {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final UserRepository userRepository;
+
+    private final NavigableMap<String, long[]> postings = new TreeMap<>();
+    private final Map<Long, String> indexedNames = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready = false;
+
+    public UserSearchIndex(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Builds every posting list in a growable buffer first and sorts each one
+     * once at the end, then swaps the finished index in under the write lock.
+     */
+    @Transactional(readOnly = true)
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Map<String, PostingBuffer> buffers = new HashMap<>();
+        Map<Long, String> names = new HashMap<>();
+        try (Stream<UserNameProjection> users = userRepository.streamAllDisplayNames()) {
+            users.forEach(user -> {
+                String normalized = normalize(user.getDisplayName());
+                if (normalized.isEmpty()) {
+                    return;
+                }
+                names.put(user.getId(), normalized);
+                for (String term : terms(normalized)) {
+                    buffers.computeIfAbsent(term, key -> new PostingBuffer()).add(user.getId());
+                }
+            });
+        }
+
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            buffers.forEach((term, buffer) -> postings.put(term, buffer.toSortedIds()));
+            indexedNames.clear();
+            indexedNames.putAll(names);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        ready = true;
+    }
+
+    // Runs after commit, so a rolled-back rename never reaches the index
+    @TransactionalEventListener(fallbackExecution = true)
+    public void handleUserUpdatedEvent(UserUpdatedEvent event) {
+        update(event.user().getId(), event.user().getDisplayName());
+    }
+
+    public void update(long userId, String displayName) {
+        String normalized = normalize(displayName);
+        lock.writeLock().lock();
+        try {
+            String previous = indexedNames.get(userId);
+            if (normalized.equals(previous)) {
+                return;
+            }
+            if (previous != null) {
+                for (String term : terms(previous)) {
+                    removePosting(term, userId);
+                }
+            }
+            if (normalized.isEmpty()) {
+                indexedNames.remove(userId);
+                return;
+            }
+            indexedNames.put(userId, normalized);
+            for (String term : terms(normalized)) {
+                addPosting(term, userId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns ids of users with a name or name word starting with the prefix,
+     * in key order, skipping the first offset matches.
+     */
+    public long[] search(String prefix, long excludeId, int offset, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty() || limit <= 0) {
+            return EMPTY;
+        }
+
+        Set<Long> matches = new LinkedHashSet<>();
+        int wanted = offset + limit;
+        lock.readLock().lock();
+        try {
+            for (long[] ids : postings.subMap(normalized, true, normalized + Character.MAX_VALUE, false).values()) {
+                for (long id : ids) {
+                    if (id != excludeId) {
+                        matches.add(id);
+                    }
+                }
+                if (matches.size() >= wanted) {
+                    break;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return matches.stream().skip(offset).limit(limit).mapToLong(Long::longValue).toArray();
+    }
+
+    // Posting lists are kept sorted, so membership is a binary search
+    private void addPosting(String term, long userId) {
+        long[] ids = postings.getOrDefault(term, EMPTY);
+        int index = Arrays.binarySearch(ids, userId);
+        if (index >= 0) {
+            return;
+        }
+        int insertAt = -index - 1;
+        long[] grown = new long[ids.length + 1];
+        System.arraycopy(ids, 0, grown, 0, insertAt);
+        grown[insertAt] = userId;
+        System.arraycopy(ids, insertAt, grown, insertAt + 1, ids.length - insertAt);
+        postings.put(term, grown);
+    }
+
+    private void removePosting(String term, long userId) {
+        long[] ids = postings.get(term);
+        if (ids == null) {
+            return;
+        }
+        int index = Arrays.binarySearch(ids, userId);
+        if (index < 0) {
+            return;
+        }
+        if (ids.length == 1) {
+            postings.remove(term);
+            return;
+        }
+        long[] remaining = new long[ids.length - 1];
+        System.arraycopy(ids, 0, remaining, 0, index);
+        System.arraycopy(ids, index + 1, remaining, index, ids.length - index - 1);
+        postings.put(term, remaining);
+    }
+
+    // Append-only id buffer used while the index is being built
+    private static final class PostingBuffer {
+        private long[] ids = new long[4];
+        private int size;
+
+        void add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        long[] toSortedIds() {
+            long[] sorted = Arrays.copyOf(ids, size);
+            Arrays.sort(sorted);
+            int unique = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (unique == 0 || sorted[i] != sorted[unique - 1]) {
+                    sorted[unique++] = sorted[i];
+                }
+            }
+            return unique == sorted.length ? sorted : Arrays.copyOf(sorted, unique);
+        }
+    }
+
+    private static Set<String> terms(String normalizedName) {
+        Set<String> terms = new LinkedHashSet<>();
+        terms.add(normalizedName);
+        for (String word : normalizedName.split("\\s+")) {
+            if (!word.isEmpty()) {
+                terms.add(word);
+            }
+        }
+        return terms;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase();
+    }
+}
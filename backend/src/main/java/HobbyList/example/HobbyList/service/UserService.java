@@ -1,47 +1,64 @@
 package HobbyList.example.HobbyList.service;
 
+import HobbyList.example.HobbyList.dto.CursorPage;
 import HobbyList.example.HobbyList.dto.MilestoneDto;
 import HobbyList.example.HobbyList.dto.PhotoDto;
 import HobbyList.example.HobbyList.dto.ProfileDto;
+import HobbyList.example.HobbyList.dto.ProfileProjection;
 import HobbyList.example.HobbyList.dto.UserSummaryDto;
 import HobbyList.example.HobbyList.dto.UserSummaryProjection;
+import HobbyList.example.HobbyList.mapper.UserSummaryMapper;
+import HobbyList.example.HobbyList.model.Hobby;
 import HobbyList.example.HobbyList.model.User;
+import HobbyList.example.HobbyList.repository.HobbyRepository;
 import HobbyList.example.HobbyList.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import HobbyList.example.HobbyList.repository.MilestoneRepository;
-import HobbyList.example.HobbyList.repository.PhotoRepository;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 @Service
 public class UserService {
 
     private final UserRepository userRepository;
-    private final FollowService followService;
+    private final HobbyRepository hobbyRepository;
     private final S3Service s3Service;
-    private final MilestoneRepository milestoneRepository;
-    private final PhotoRepository photoRepository;
     private final MilestoneService milestoneService;
     private final PhotoService photoService;
-    private final ObjectMapper objectMapper;
+    private final UserSearchIndex userSearchIndex;
+    private final DiscoveryService discoveryService;
+    private final RelationshipResolver relationshipResolver;
+    private final UserSummaryMapper userSummaryMapper;
+    private final int searchPageSize;
+    private final int searchMaxPageSize;
+    private final int prefixIndexMaxLength;
     // Assuming we might need mappers or other services to convert milestones/photos
     // For now, we'll assume basic conversion or empty lists if not visible
 
-    public UserService(UserRepository userRepository, FollowService followService, S3Service s3Service,
-            MilestoneRepository milestoneRepository, PhotoRepository photoRepository,
-            MilestoneService milestoneService, PhotoService photoService, ObjectMapper objectMapper) {
+    public UserService(UserRepository userRepository, HobbyRepository hobbyRepository, S3Service s3Service,
+            MilestoneService milestoneService, PhotoService photoService,
+            UserSearchIndex userSearchIndex, DiscoveryService discoveryService,
+            RelationshipResolver relationshipResolver, UserSummaryMapper userSummaryMapper,
+            @Value("${search.page-size:20}") int searchPageSize,
+            @Value("${search.max-page-size:50}") int searchMaxPageSize,
+            @Value("${search.prefix-index.max-length:4}") int prefixIndexMaxLength) {
         this.userRepository = userRepository;
-        this.followService = followService;
+        this.hobbyRepository = hobbyRepository;
         this.s3Service = s3Service;
-        this.milestoneRepository = milestoneRepository;
-        this.photoRepository = photoRepository;
         this.milestoneService = milestoneService;
         this.photoService = photoService;
-        this.objectMapper = objectMapper;
+        this.userSearchIndex = userSearchIndex;
+        this.discoveryService = discoveryService;
+        this.relationshipResolver = relationshipResolver;
+        this.userSummaryMapper = userSummaryMapper;
+        this.searchPageSize = searchPageSize;
+        this.searchMaxPageSize = searchMaxPageSize;
+        this.prefixIndexMaxLength = prefixIndexMaxLength;
     }
 
     private String getPresignUrl(String profileUrl) {
@@ -49,19 +66,18 @@ public class UserService {
             return null;
         }
         String bucketName = "hobbylist-photos";
-        String key = profileUrl.substring(profileUrl.indexOf("profile/"));
-        return s3Service.generateDownloadUrl(bucketName, key);
+        return s3Service.generateDownloadUrl(bucketName, profileKey(profileUrl));
     }
 
     public ProfileDto getUserProfile(User requester, Long targetUserId) {
-        User target = userRepository.findById(targetUserId)
+        ProfileProjection profile = userRepository.findProfileById(targetUserId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
 
-        // Update to use relationship ?
-        boolean isSelf = requester.getId() == target.getId();
-        boolean isFollowing = followService.isFollowing(requester, target);
-        boolean isPrivate = target.isPrivate();
-        boolean isFollowRequested = followService.isFollowRequested(requester, target);
+        boolean isSelf = Objects.equals(requester.getId(), profile.getId());
+        String relationship = relationshipResolver.resolve(requester.getId(), targetUserId);
+        boolean isFollowing = RelationshipResolver.FOLLOWING.equals(relationship);
+        boolean isPrivate = Boolean.TRUE.equals(profile.getIsPrivate());
+        boolean isFollowRequested = RelationshipResolver.REQUESTED.equals(relationship);
 
         boolean canViewContent = isSelf || !isPrivate || isFollowing;
 
@@ -69,64 +85,100 @@ public class UserService {
         List<PhotoDto> photos = null;
 
         if (canViewContent && !isSelf) {
-            milestones = milestoneRepository.findByUserId(targetUserId).stream()
-                    .map(milestoneService::toDto)
-                    .collect(Collectors.toList());
+            milestones = milestoneService.getAllMilestones(targetUserId);
 
-            photos = photoRepository.findByUserId(targetUserId).stream()
-                    .map(photo -> photoService.toDto(photo, photo.getImageUrl()))
-                    .toList();
+            photos = photoService.getUserPhotos(targetUserId, false);
         }
 
-        String profileUrl = target.getProfileUrl();
+        String profileUrl = profile.getProfileUrl();
         String presignedUrl = getPresignUrl(profileUrl);
 
         return new ProfileDto(
-                target.getId(),
-                target.getDisplayName(),
+                profile.getId(),
+                profile.getDisplayName(),
                 presignedUrl,
-                target.getDescription(),
-                target.getHobbies(),
-                target.isPrivate(),
-                target.getFollowers().size(),
-                target.getFollowing().size(),
+                profile.getDescription(),
+                profile.getHobbies(),
+                isPrivate,
+                profile.getFollowersCount(),
+                profile.getFollowingCount(),
                 isFollowing,
                 isFollowRequested,
                 milestones,
                 photos);
     }
 
-    public List<UserSummaryDto> searchUsers(String query, Long currentUserId) {
-        return userRepository.searchUsers(query, currentUserId).stream()
-                .map(this::convertToSummaryDto)
-                .collect(Collectors.toList());
+    // Ranked by prefix match, then trigram similarity; served by the trigram index
+    public List<UserSummaryDto> searchUsers(String query, Long currentUserId, Integer page, Integer size) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        String normalized = query.trim().toLowerCase();
+        int pageSize = size == null || size <= 0 ? searchPageSize : Math.min(size, searchMaxPageSize);
+        int offset = page == null || page < 0 ? 0 : page * pageSize;
+
+        // Short type-ahead prefixes are matched in memory; only the hits are read from the db
+        if (normalized.length() <= prefixIndexMaxLength && userSearchIndex.isReady()) {
+            return searchByPrefix(normalized, currentUserId, offset, pageSize);
+        }
+
+        String escaped = escapeLike(normalized);
+        return userSummaryMapper.toDtos(userRepository.searchUsers(normalized, "%" + escaped + "%", escaped + "%",
+                currentUserId, pageSize, offset), currentUserId);
     }
 
-    public List<UserSummaryDto> getDiscoveryUsers(Long currentUserId) {
-        return userRepository.findSuggestedUsers(currentUserId).stream()
-                .map(this::convertToSummaryDto)
-                .collect(Collectors.toList());
+    // Users who list the hobby, in id order; served by the user_hobbies (hobby_id, user_id) index
+    public CursorPage<UserSummaryDto> getUsersByHobby(String hobby, Long currentUserId, Long cursor, Integer limit) {
+        String normalized = HobbyService.normalize(hobby);
+        Long hobbyId = normalized == null ? null
+                : hobbyRepository.findByName(normalized).map(Hobby::getId).orElse(null);
+        if (hobbyId == null) {
+            return new CursorPage<>(List.of(), null);
+        }
+
+        // One extra row tells whether another page exists
+        int pageSize = limit == null || limit <= 0 ? searchPageSize : Math.min(limit, searchMaxPageSize);
+        List<UserSummaryProjection> rows = userRepository.findByHobby(hobbyId, currentUserId,
+                cursor != null ? cursor : 0L, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<UserSummaryProjection> page = hasMore ? rows.subList(0, pageSize) : rows;
+        Long nextCursor = hasMore ? page.get(page.size() - 1).getId() : null;
+        return new CursorPage<>(userSummaryMapper.toDtos(page, currentUserId), nextCursor);
+    }
+
+    private List<UserSummaryDto> searchByPrefix(String prefix, Long currentUserId, int offset, int limit) {
+        return findSummariesInOrder(userSearchIndex.search(prefix, currentUserId, offset, limit), currentUserId);
     }
 
-    private UserSummaryDto convertToSummaryDto(UserSummaryProjection user) {
-        List<String> hobbiesList = new ArrayList<>();
-
-        try {
-            if (user.getHobbies() != null) {
-                hobbiesList = objectMapper.readValue(
-                        user.getHobbies(),
-                        new TypeReference<List<String>>() {
-                        });
-            }
-        } catch (Exception e) {
-            System.err.println("Error parsing hobbies for user " + user.getId() + ": " + e.getMessage());
+    private List<UserSummaryDto> findSummariesInOrder(long[] ids, Long currentUserId) {
+        if (ids.length == 0) {
+            return List.of();
         }
 
-        return new UserSummaryDto(
-                user.getId(),
-                user.getDisplayName(),
-                getPresignUrl(user.getProfileUrl()),
-                hobbiesList,
-                user.getRelationship());
+        List<Long> orderedIds = Arrays.stream(ids).boxed().toList();
+        Map<Long, UserSummaryProjection> rows = userRepository.findSummariesByIds(orderedIds).stream()
+                .collect(Collectors.toMap(UserSummaryProjection::getId, Function.identity()));
+        return userSummaryMapper.toDtos(orderedIds.stream()
+                .map(rows::get)
+                .filter(Objects::nonNull)
+                .toList(), currentUserId);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    // Samples ids from the discovery pool and resolves relationships for those ids only
+    public List<UserSummaryDto> getDiscoveryUsers(Long currentUserId) {
+        return findSummariesInOrder(discoveryService.sample(currentUserId, 10), currentUserId);
+    }
+
+    // Ranked by shared hobbies and second-degree follows
+    public List<UserSummaryDto> getRecommendedUsers(Long currentUserId) {
+        return findSummariesInOrder(discoveryService.recommend(currentUserId, 10), currentUserId);
+    }
+
+    private String profileKey(String profileUrl) {
+        return profileUrl.substring(profileUrl.indexOf("profile/"));
     }
 }
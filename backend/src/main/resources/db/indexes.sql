@@ -0,0 +1,120 @@
+-- Indexes that cannot be declared through JPA annotations.
+-- This script runs on every startup after Hibernate updates the schema,
+-- so every statement here must be idempotent. One-time data migrations are
+-- guarded by a row in data_migrations and record that row once they ran.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Trigram index for user search: serves LIKE '%query%' and similarity ranking
+CREATE INDEX IF NOT EXISTS idx_users_display_name_trgm
+    ON users USING gin (lower(display_name) gin_trgm_ops);
+
+-- Materialized milestone paths: prefix index for subtree reads and updates,
+-- then a one-time backfill that builds path and depth from parent_id for rows
+-- created before the columns existed; MilestoneService maintains them since
+CREATE INDEX IF NOT EXISTS idx_milestones_path
+    ON milestones (path text_pattern_ops);
+
+WITH RECURSIVE tree AS (
+    SELECT id, '/' || id || '/' AS path, 0 AS depth
+    FROM milestones
+    WHERE parent_id IS NULL
+      AND NOT EXISTS (SELECT 1 FROM data_migrations WHERE name = 'milestone-paths')
+    UNION ALL
+    SELECT m.id, t.path || m.id || '/', t.depth + 1
+    FROM milestones m JOIN tree t ON m.parent_id = t.id
+)
+UPDATE milestones m
+SET path = tree.path, depth = tree.depth
+FROM tree
+WHERE m.id = tree.id
+  AND (m.path IS DISTINCT FROM tree.path OR m.depth <> tree.depth);
+
+INSERT INTO data_migrations (name, applied_at) VALUES ('milestone-paths', now())
+ON CONFLICT (name) DO NOTHING;
+
+-- Pooled id sequences (allocationSize 50). Rows inserted while the tables
+-- still used identity columns can sit above the sequence, so move each
+-- sequence past the current max id whenever it lags behind
+SELECT setval('users_seq', (SELECT MAX(id) FROM users) + 50)
+WHERE (SELECT MAX(id) FROM users) >= (SELECT last_value FROM users_seq);
+
+SELECT setval('milestones_seq', (SELECT MAX(id) FROM milestones) + 50)
+WHERE (SELECT MAX(id) FROM milestones) >= (SELECT last_value FROM milestones_seq);
+
+SELECT setval('photos_seq', (SELECT MAX(id) FROM photos) + 50)
+WHERE (SELECT MAX(id) FROM photos) >= (SELECT last_value FROM photos_seq);
+
+SELECT setval('follow_requests_seq', (SELECT MAX(id) FROM follow_requests) + 50)
+WHERE (SELECT MAX(id) FROM follow_requests) >= (SELECT last_value FROM follow_requests_seq);
+
+SELECT setval('verification_tokens_seq', (SELECT MAX(id) FROM verification_tokens) + 50)
+WHERE (SELECT MAX(id) FROM verification_tokens) >= (SELECT last_value FROM verification_tokens_seq);
+
+-- One-time backfill of the denormalized follow counters on users; the follow
+-- transactions keep them current afterwards. Each side is counted with a
+-- single grouped pass over user_followers
+UPDATE users u
+SET followers_count = COALESCE(fr.n, 0), following_count = COALESCE(fg.n, 0)
+FROM users u2
+LEFT JOIN (SELECT user_id AS id, COUNT(*) AS n FROM user_followers GROUP BY user_id) fr ON fr.id = u2.id
+LEFT JOIN (SELECT follower_id AS id, COUNT(*) AS n FROM user_followers GROUP BY follower_id) fg ON fg.id = u2.id
+WHERE u.id = u2.id
+  AND NOT EXISTS (SELECT 1 FROM data_migrations WHERE name = 'follow-counters')
+  AND (u.followers_count <> COALESCE(fr.n, 0) OR u.following_count <> COALESCE(fg.n, 0));
+
+INSERT INTO data_migrations (name, applied_at) VALUES ('follow-counters', now())
+ON CONFLICT (name) DO NOTHING;
+
+-- Normalized copy of users.hobbies. It has no JPA mapping, so
+-- HobbyService.syncHobbies is its only writer
+CREATE TABLE IF NOT EXISTS user_hobbies (
+    user_id bigint NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    hobby_id bigint NOT NULL REFERENCES hobbies (id),
+    PRIMARY KEY (user_id, hobby_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_user_hobbies_hobby
+    ON user_hobbies (hobby_id, user_id);
+
+-- One-time hobby dictionary migration. First rewrite users.hobbies into its
+-- normalized form (trimmed, lowercased, blanks and duplicates dropped, first
+-- occurrence kept), then copy every name into hobbies and user_hobbies;
+-- HobbyService.syncHobbies keeps both current afterwards
+UPDATE users u
+SET hobbies = n.hobbies
+FROM (
+    SELECT d.id, jsonb_agg(d.name ORDER BY d.ord) AS hobbies
+    FROM (
+        SELECT u2.id, lower(trim(h.name)) AS name, MIN(h.ord) AS ord
+        FROM users u2
+        CROSS JOIN LATERAL jsonb_array_elements_text(u2.hobbies) WITH ORDINALITY AS h(name, ord)
+        WHERE trim(h.name) <> ''
+        GROUP BY u2.id, lower(trim(h.name))
+    ) d
+    GROUP BY d.id
+) n
+WHERE u.id = n.id
+  AND NOT EXISTS (SELECT 1 FROM data_migrations WHERE name = 'hobby-dictionary')
+  AND u.hobbies IS DISTINCT FROM n.hobbies;
+
+INSERT INTO hobbies (name)
+SELECT d.name
+FROM (
+    SELECT DISTINCT h.name
+    FROM users u
+    CROSS JOIN LATERAL jsonb_array_elements_text(u.hobbies) AS h(name)
+) d
+WHERE NOT EXISTS (SELECT 1 FROM data_migrations WHERE name = 'hobby-dictionary')
+  AND NOT EXISTS (SELECT 1 FROM hobbies x WHERE x.name = d.name);
+
+INSERT INTO user_hobbies (user_id, hobby_id)
+SELECT u.id, x.id
+FROM users u
+CROSS JOIN LATERAL jsonb_array_elements_text(u.hobbies) AS h(name)
+JOIN hobbies x ON x.name = h.name
+WHERE NOT EXISTS (SELECT 1 FROM data_migrations WHERE name = 'hobby-dictionary')
+ON CONFLICT DO NOTHING;
+
+INSERT INTO data_migrations (name, applied_at) VALUES ('hobby-dictionary', now())
+ON CONFLICT (name) DO NOTHING;
@@ -0,0 +1,118 @@
+package HobbyList.example.HobbyList.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.Optimizer;
+import org.hibernate.id.enhanced.OptimizerFactory;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.SequenceGenerator;
+
+/**
+ * Statement-count checks for inserts: ids come from pooled sequences, so N
+ * inserts cost about N / allocationSize sequence calls, and the allocation
+ * size matches the JDBC batch size so each id block fills one insert batch.
+ */
+class SequenceBatchingTest {
+
+    private int batchSize;
+
+    @BeforeEach
+    void loadSettings() {
+        YamlPropertiesFactoryBean yaml = new YamlPropertiesFactoryBean();
+        yaml.setResources(new ClassPathResource("application.yml"));
+        Properties properties = yaml.getObject();
+        batchSize = Integer.parseInt(properties.getProperty("spring.jpa.properties.hibernate.jdbc.batch_size"));
+        assertEquals("true", properties.getProperty("spring.jpa.properties.hibernate.order_inserts"));
+        assertTrue(properties.getProperty("spring.datasource.url").contains("reWriteBatchedInserts=true"));
+    }
+
+    @Test
+    void everySequenceAllocatesOneInsertBatchOfIds() throws Exception {
+        List<SequenceGenerator> generators = sequenceGenerators();
+
+        assertFalse(generators.isEmpty());
+        for (SequenceGenerator generator : generators) {
+            assertEquals(batchSize, generator.allocationSize(), generator.sequenceName());
+        }
+    }
+
+    @Test
+    void insertingManyRowsCallsTheSequenceOncePerBlock() throws Exception {
+        int allocationSize = sequenceGenerators().get(0).allocationSize();
+        Optimizer optimizer = OptimizerFactory.buildOptimizer(StandardOptimizerDescriptor.POOLED, Long.class,
+                allocationSize, -1);
+        FakeSequence sequence = new FakeSequence(allocationSize);
+
+        int rows = 1000;
+        Set<Object> ids = new HashSet<>();
+        for (int i = 0; i < rows; i++) {
+            ids.add(optimizer.generate(sequence));
+        }
+
+        assertEquals(rows, ids.size());
+        // One extra call: the pooled optimizer reads the sequence's initial value first
+        assertTrue(sequence.calls <= rows / allocationSize + 1, "sequence calls: " + sequence.calls);
+    }
+
+    private static List<SequenceGenerator> sequenceGenerators() throws Exception {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(Entity.class));
+
+        List<SequenceGenerator> generators = new ArrayList<>();
+        for (BeanDefinition definition : scanner.findCandidateComponents(SequenceBatchingTest.class.getPackageName())) {
+            for (Field field : Class.forName(definition.getBeanClassName()).getDeclaredFields()) {
+                SequenceGenerator generator = field.getAnnotation(SequenceGenerator.class);
+                if (generator != null) {
+                    generators.add(generator);
+                }
+            }
+        }
+        return generators;
+    }
+
+    // Postgres sequence created with INCREMENT BY allocationSize, counting round trips
+    private static final class FakeSequence implements AccessCallback {
+        private final int increment;
+        private long next = 1;
+        int calls;
+
+        FakeSequence(int increment) {
+            this.increment = increment;
+        }
+
+        @Override
+        public IntegralDataTypeHolder getNextValue() {
+            calls++;
+            IntegralDataTypeHolder value = IdentifierGeneratorHelper.getIntegralDataTypeHolder(Long.class);
+            value.initialize(next);
+            next += increment;
+            return value;
+        }
+
+        @Override
+        public String getTenantIdentifier() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package HobbyList.example.HobbyList.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.roaringbitmap.RoaringBitmap;
+
+import HobbyList.example.HobbyList.dto.FollowChangedEvent;
+import HobbyList.example.HobbyList.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class FollowGraphCacheTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private FollowGraphCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new FollowGraphCache(userRepository, new SimpleMeterRegistry(), 1 << 20);
+    }
+
+    @Test
+    void loadsAUsersFollowingSetOnceAndProbesTheBitmap() {
+        when(userRepository.findFollowingIds(1L)).thenReturn(List.of(2L, 3L, 500L));
+
+        assertTrue(cache.isFollowing(1L, 3L));
+        assertFalse(cache.isFollowing(1L, 4L));
+        assertEquals(Set.of(2L, 500L), cache.followedAmong(1L, List.of(2L, 4L, 500L)));
+
+        verify(userRepository, times(1)).findFollowingIds(1L);
+    }
+
+    @Test
+    void followChangesAreAppliedToACopy() {
+        when(userRepository.findFollowingIds(1L)).thenReturn(List.of(2L));
+        RoaringBitmap before = cache.following(1L);
+
+        cache.handleFollowChangedEvent(new FollowChangedEvent(1L, 7L, true));
+        cache.handleFollowChangedEvent(new FollowChangedEvent(1L, 2L, false));
+
+        assertTrue(cache.isFollowing(1L, 7L));
+        assertFalse(cache.isFollowing(1L, 2L));
+        // Readers holding the old bitmap never see it change underneath them
+        assertEquals(RoaringBitmap.bitmapOf(2), before);
+        verify(userRepository, times(1)).findFollowingIds(1L);
+    }
+
+    @Test
+    void changesForUsersNotCachedAreIgnored() {
+        cache.handleFollowChangedEvent(new FollowChangedEvent(9L, 7L, true));
+
+        verifyNoInteractions(userRepository);
+    }
+}
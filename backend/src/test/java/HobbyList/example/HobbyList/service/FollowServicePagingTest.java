@@ -0,0 +1,107 @@
+package HobbyList.example.HobbyList.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import HobbyList.example.HobbyList.dto.CursorPage;
+import HobbyList.example.HobbyList.dto.UserSummaryDto;
+import HobbyList.example.HobbyList.dto.UserSummaryProjection;
+import HobbyList.example.HobbyList.mapper.UserSummaryMapper;
+import HobbyList.example.HobbyList.model.User;
+import HobbyList.example.HobbyList.repository.FollowRequestRepository;
+import HobbyList.example.HobbyList.repository.UserRepository;
+
+@ExtendWith(MockitoExtension.class)
+class FollowServicePagingTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private FollowRequestRepository followRequestRepository;
+
+    @Mock
+    private UserSummaryMapper userSummaryMapper;
+
+    @Mock
+    private FollowGraphCache followGraphCache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private FollowService followService;
+    private User target;
+    private User viewer;
+
+    record Summary(Long id) implements UserSummaryProjection {
+        public Long getId() { return id; }
+        public String getDisplayName() { return "user " + id; }
+        public String getProfileUrl() { return null; }
+        public String getHobbies() { return null; }
+    }
+
+    @BeforeEach
+    void setUp() {
+        followService = new FollowService(userRepository, followRequestRepository, userSummaryMapper,
+                followGraphCache, eventPublisher, 3, 5);
+        target = new User();
+        target.setId(1L);
+        viewer = new User();
+        viewer.setId(2L);
+        when(userSummaryMapper.toDtos(any(), anyLong())).thenAnswer(call -> {
+            List<UserSummaryProjection> rows = call.getArgument(0);
+            return rows.stream()
+                    .map(row -> new UserSummaryDto(row.getId(), row.getDisplayName(), null, List.of(), "NONE"))
+                    .toList();
+        });
+    }
+
+    private static List<UserSummaryProjection> rows(long from, long to) {
+        return LongStream.rangeClosed(from, to).<UserSummaryProjection>mapToObj(Summary::new).toList();
+    }
+
+    @Test
+    void fullPageFetchesOneExtraRowAndReturnsTheLastIdAsCursor() {
+        when(userRepository.findFollowers(1L, 0L, 4)).thenReturn(rows(10, 13));
+
+        CursorPage<UserSummaryDto> page = followService.getFollowers(target, viewer, null, null);
+
+        assertEquals(List.of(10L, 11L, 12L), page.items().stream().map(UserSummaryDto::id).toList());
+        assertEquals(12L, page.nextCursor());
+        verify(userSummaryMapper).toDtos(rows(10, 12), 2L);
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        when(userRepository.findFollowing(1L, 12L, 4)).thenReturn(rows(13, 14));
+
+        CursorPage<UserSummaryDto> page = followService.getFollowing(target, viewer, 12L, null);
+
+        assertEquals(List.of(13L, 14L), page.items().stream().map(UserSummaryDto::id).toList());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void requestedLimitIsCappedAtTheMaximumPageSize() {
+        when(userRepository.findFollowers(1L, 0L, 6)).thenReturn(rows(1, 6));
+
+        CursorPage<UserSummaryDto> page = followService.getFollowers(target, viewer, null, 1000);
+
+        assertEquals(5, page.items().size());
+        assertEquals(5L, page.nextCursor());
+    }
+}
@@ -0,0 +1,83 @@
+package HobbyList.example.HobbyList.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.roaringbitmap.RoaringBitmap;
+
+import HobbyList.example.HobbyList.dto.UserHobbiesChangedEvent;
+import HobbyList.example.HobbyList.dto.UserHobbyProjection;
+import HobbyList.example.HobbyList.repository.HobbyRepository;
+
+@ExtendWith(MockitoExtension.class)
+class HobbyAffinityIndexTest {
+
+    private record Row(Long getUserId, Long getHobbyId) implements UserHobbyProjection {
+    }
+
+    @Mock
+    private HobbyRepository hobbyRepository;
+
+    private HobbyAffinityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        // Hobby ids are sparse dictionary ids, not positions
+        when(hobbyRepository.streamAllUserHobbies()).thenReturn(Stream.of(
+                new Row(1L, 100L), new Row(1L, 5000L),
+                new Row(2L, 100L), new Row(2L, 5000L),
+                new Row(3L, 5000L),
+                new Row(4L, 7L)));
+        index = new HobbyAffinityIndex(hobbyRepository);
+        index.load();
+    }
+
+    @Test
+    void countsSharedHobbiesFromTheLoadedJoinRows() {
+        assertEquals(Map.of(2, 2, 3, 1), index.overlapCounts(1L, 100, new RoaringBitmap()));
+    }
+
+    @Test
+    void skipsExcludedCandidates() {
+        assertEquals(Map.of(3, 1), index.overlapCounts(1L, 100, RoaringBitmap.bitmapOf(2)));
+    }
+
+    @Test
+    void hobbyChangesReplaceTheUsersPostings() {
+        index.handleUserHobbiesChangedEvent(new UserHobbiesChangedEvent(2L, List.of(7L)));
+
+        assertEquals(Map.of(3, 1), index.overlapCounts(1L, 100, new RoaringBitmap()));
+        assertEquals(Map.of(4, 1), index.overlapCounts(2L, 100, new RoaringBitmap()));
+
+        index.handleUserHobbiesChangedEvent(new UserHobbiesChangedEvent(2L, List.of()));
+        assertTrue(index.overlapCounts(2L, 100, new RoaringBitmap()).isEmpty());
+        assertTrue(index.overlapCounts(4L, 100, new RoaringBitmap()).isEmpty());
+    }
+
+    @Test
+    void changesThatArriveDuringALoadSurviveTheSwap() {
+        // The reload still sees user 2's old hobbies while the change commits mid-stream
+        when(hobbyRepository.streamAllUserHobbies()).thenReturn(Stream.<UserHobbyProjection>of(
+                new Row(1L, 100L), new Row(2L, 100L), new Row(4L, 7L))
+                .peek(row -> {
+                    if (row.getUserId() == 2L) {
+                        index.handleUserHobbiesChangedEvent(new UserHobbiesChangedEvent(2L, List.of(7L)));
+                    }
+                }));
+
+        index.load();
+
+        assertTrue(index.overlapCounts(1L, 100, new RoaringBitmap()).isEmpty());
+        assertEquals(Map.of(2, 1), index.overlapCounts(4L, 100, new RoaringBitmap()));
+    }
+}
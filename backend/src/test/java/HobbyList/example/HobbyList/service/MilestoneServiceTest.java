@@ -0,0 +1,348 @@
+package HobbyList.example.HobbyList.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import HobbyList.example.HobbyList.dto.CursorPage;
+import HobbyList.example.HobbyList.dto.MilestoneBatchOperation;
+import HobbyList.example.HobbyList.dto.MilestoneCompletionProjection;
+import HobbyList.example.HobbyList.dto.MilestoneDto;
+import HobbyList.example.HobbyList.dto.MilestonePhotoTagProjection;
+import HobbyList.example.HobbyList.dto.MilestoneProjection;
+import HobbyList.example.HobbyList.dto.MilestoneQuery;
+import HobbyList.example.HobbyList.mapper.MilestoneMapper;
+import HobbyList.example.HobbyList.model.Milestone;
+import HobbyList.example.HobbyList.model.User;
+import HobbyList.example.HobbyList.repository.DataMigrationRepository;
+import HobbyList.example.HobbyList.repository.MilestoneRepository;
+import HobbyList.example.HobbyList.repository.PhotoRepository;
+
+@ExtendWith(MockitoExtension.class)
+class MilestoneServiceTest {
+
+    @Mock
+    private MilestoneRepository milestoneRepository;
+
+    @Mock
+    private PhotoRepository photoRepository;
+
+    @Mock
+    private MilestoneMapper milestoneMapper;
+
+    @Mock
+    private DataMigrationRepository dataMigrationRepository;
+
+    private MilestoneService milestoneService;
+
+    record Row(Long id, Long parentId, Boolean completed, Double completionRate) implements MilestoneProjection {
+        public Long getId() { return id; }
+        public String getTask() { return "task " + id; }
+        public OffsetDateTime getDueDate() { return null; }
+        public Boolean getCompleted() { return completed; }
+        public Double getCompletionRate() { return completionRate; }
+        public Long getParentId() { return parentId; }
+        public String getHobbyTag() { return null; }
+        public String getManualState() { return "none"; }
+    }
+
+    record Tag(Long milestoneId, Long photoId) implements MilestonePhotoTagProjection {
+        public Long getMilestoneId() { return milestoneId; }
+        public Long getPhotoId() { return photoId; }
+    }
+
+    record Completion(Long id, Long parentId, Boolean completed, Double completionRate, String manualState,
+            Integer childCount, Double childRateSum) implements MilestoneCompletionProjection {
+        public Long getId() { return id; }
+        public Long getParentId() { return parentId; }
+        public Boolean getCompleted() { return completed; }
+        public Double getCompletionRate() { return completionRate; }
+        public String getManualState() { return manualState; }
+        public Integer getChildCount() { return childCount; }
+        public Double getChildRateSum() { return childRateSum; }
+    }
+
+    @BeforeEach
+    void setUp() {
+        milestoneService = new MilestoneService(milestoneRepository, photoRepository, milestoneMapper,
+                dataMigrationRepository, 50, 200);
+    }
+
+    @Test
+    void loadsAWholeTreeWithTwoQueriesWhateverItsSize() {
+        // One root with 20 children, each with 5 grandchildren
+        List<MilestoneProjection> rows = new ArrayList<>();
+        rows.add(new Row(1L, null, false, 0.0));
+        long nextId = 2;
+        for (int i = 0; i < 20; i++) {
+            long childId = nextId++;
+            rows.add(new Row(childId, 1L, false, 0.0));
+            for (int j = 0; j < 5; j++) {
+                rows.add(new Row(nextId++, childId, false, 0.0));
+            }
+        }
+        when(milestoneRepository.findRowsByUserId(7L)).thenReturn(rows);
+        when(milestoneRepository.findPhotoTagsByUserId(7L)).thenReturn(List.of(new Tag(2L, 100L), new Tag(2L, 101L)));
+
+        List<MilestoneDto> trees = milestoneService.getMilestoneTrees(7L);
+
+        assertEquals(1, trees.size());
+        MilestoneDto root = trees.get(0);
+        assertEquals(20, root.subMilestones().size());
+        assertEquals(5, root.subMilestones().get(0).subMilestones().size());
+        assertEquals(List.of(100L, 101L), root.subMilestones().get(0).taggedPhotoIds());
+
+        verify(milestoneRepository, times(1)).findRowsByUserId(7L);
+        verify(milestoneRepository, times(1)).findPhotoTagsByUserId(7L);
+        verifyNoMoreInteractions(milestoneRepository);
+        verifyNoInteractions(photoRepository);
+    }
+
+    @Test
+    void everyMilestoneListingSharesTheSameTwoQueries() {
+        when(milestoneRepository.findRowsByUserId(7L)).thenReturn(List.of(
+                new Row(1L, null, false, 0.0), new Row(2L, 1L, false, 0.0), new Row(3L, 2L, false, 0.0)));
+        when(milestoneRepository.findPhotoTagsByUserId(7L)).thenReturn(List.of());
+
+        List<MilestoneDto> all = milestoneService.getAllMilestones(7L);
+
+        assertEquals(List.of(1L, 2L, 3L), all.stream().map(MilestoneDto::id).toList());
+        // Subtrees are shared, not rebuilt per listed milestone
+        assertSame(all.get(1), all.get(0).subMilestones().get(0));
+        verify(milestoneRepository, times(1)).findRowsByUserId(7L);
+        verify(milestoneRepository, times(1)).findPhotoTagsByUserId(7L);
+        verifyNoMoreInteractions(milestoneRepository);
+    }
+
+    @Test
+    void hobbyFilteredTreesReadOnlyTheMatchingTrees() {
+        when(milestoneRepository.findTreeRowsByRootHobbyTag(7L, "guitar")).thenReturn(List.of(
+                new Row(1L, null, false, 0.0), new Row(2L, 1L, false, 0.0)));
+        when(milestoneRepository.findPhotoTagsByMilestoneIds(List.of(1L, 2L))).thenReturn(List.of(new Tag(2L, 100L)));
+
+        List<MilestoneDto> trees = milestoneService.getMilestoneTrees(7L, "guitar");
+
+        assertEquals(List.of(1L), trees.stream().map(MilestoneDto::id).toList());
+        assertEquals(List.of(100L), trees.get(0).subMilestones().get(0).taggedPhotoIds());
+        verify(milestoneRepository, never()).findRowsByUserId(any());
+        verify(milestoneRepository, never()).findPhotoTagsByUserId(any());
+    }
+
+    @Test
+    void completingALeafMovesItsParentsRate() {
+        // Parent 1 has two incomplete leaves; leaf 2 gets completed
+        when(milestoneRepository.findPathById(2L)).thenReturn(Optional.of("/1/2/"));
+        when(milestoneRepository.findCompletionRateById(2L)).thenReturn(Optional.of(0.0));
+        when(milestoneRepository.completeSubtree("/1/2/")).thenReturn(1);
+        // The chain is read after completeSubtree, so the leaf already shows rate 1.0
+        when(milestoneRepository.findAncestorChain(2L)).thenReturn(List.of(
+                new Completion(2L, 1L, true, 1.0, "complete", 0, 0.0),
+                new Completion(1L, null, false, 0.0, "none", 2, 0.0)));
+
+        milestoneService.markMilestoneComplete(2L);
+
+        verify(milestoneRepository).updateCompletion(1L, false, 0.5, "none", 1.0);
+    }
+
+    @Test
+    void completingTheLastOpenLeafCompletesTheParent() {
+        when(milestoneRepository.findPathById(3L)).thenReturn(Optional.of("/1/3/"));
+        when(milestoneRepository.findCompletionRateById(3L)).thenReturn(Optional.of(0.0));
+        when(milestoneRepository.completeSubtree("/1/3/")).thenReturn(1);
+        when(milestoneRepository.findAncestorChain(3L)).thenReturn(List.of(
+                new Completion(3L, 1L, true, 1.0, "complete", 0, 0.0),
+                new Completion(1L, null, false, 0.5, "none", 2, 1.0)));
+
+        milestoneService.markMilestoneComplete(3L);
+
+        verify(milestoneRepository).updateCompletion(1L, true, 1.0, "none", 1.0);
+    }
+
+    private static Milestone milestone(long id, Milestone parent, User user) {
+        Milestone m = new Milestone();
+        m.setId(id);
+        m.setUser(user);
+        m.setParent(parent);
+        m.setDepth(parent != null ? parent.getDepth() + 1 : 0);
+        m.setPath((parent != null ? parent.getPath() : "/") + id + "/");
+        return m;
+    }
+
+    @Test
+    void batchCompletionRebuildsTheChainFromTheDeepestLevel() {
+        User user = new User();
+        user.setId(7L);
+        Milestone parent = milestone(1L, null, user);
+        Milestone leaf = milestone(2L, parent, user);
+        when(milestoneRepository.findAllById(Set.of(2L))).thenReturn(List.of(leaf));
+        when(milestoneRepository.findAncestorChain(2L)).thenReturn(List.of(
+                new Completion(2L, 1L, true, 1.0, "complete", 0, 0.0),
+                new Completion(1L, null, false, 0.0, "none", 2, 0.0)));
+
+        milestoneService.applyBatch(user, List.of(new MilestoneBatchOperation("complete", 2L, null, null, null)));
+
+        InOrder order = inOrder(milestoneRepository);
+        order.verify(milestoneRepository).completeSubtree("/1/2/");
+        order.verify(milestoneRepository).recomputeCompletion(Set.of(2L));
+        order.verify(milestoneRepository).recomputeCompletion(Set.of(1L));
+        verify(milestoneRepository, never()).updateCompletion(any(), anyBoolean(), anyDouble(), any(), anyDouble());
+    }
+
+    @Test
+    void batchSkipsCompletesAlreadyCoveredByAnAncestorComplete() {
+        // 1 -> 2 -> 3; completing 3 and then 2 must not count 3's change twice
+        User user = new User();
+        user.setId(7L);
+        Milestone root = milestone(1L, null, user);
+        Milestone middle = milestone(2L, root, user);
+        Milestone leaf = milestone(3L, middle, user);
+        when(milestoneRepository.findAllById(Set.of(2L, 3L))).thenReturn(List.of(middle, leaf));
+        when(milestoneRepository.findAncestorChain(2L)).thenReturn(List.of(
+                new Completion(2L, 1L, true, 1.0, "complete", 1, 1.0),
+                new Completion(1L, null, false, 0.0, "none", 1, 0.0)));
+
+        milestoneService.applyBatch(user, List.of(
+                new MilestoneBatchOperation("complete", 3L, null, null, null),
+                new MilestoneBatchOperation("complete", 2L, null, null, null)));
+
+        verify(milestoneRepository).completeSubtree("/1/2/");
+        verify(milestoneRepository, never()).completeSubtree("/1/2/3/");
+        InOrder order = inOrder(milestoneRepository);
+        order.verify(milestoneRepository).recomputeCompletion(Set.of(2L));
+        order.verify(milestoneRepository).recomputeCompletion(Set.of(1L));
+        verify(milestoneRepository, never()).updateCompletion(any(), anyBoolean(), anyDouble(), any(), anyDouble());
+    }
+
+    @Test
+    void batchRejectsIncompletingInsideASubtreeItCompletes() {
+        User user = new User();
+        user.setId(7L);
+        Milestone root = milestone(1L, null, user);
+        Milestone middle = milestone(2L, root, user);
+        Milestone leaf = milestone(3L, middle, user);
+        when(milestoneRepository.findAllById(Set.of(2L, 3L))).thenReturn(List.of(middle, leaf));
+
+        assertThrows(IllegalArgumentException.class, () -> milestoneService.applyBatch(user, List.of(
+                new MilestoneBatchOperation("complete", 2L, null, null, null),
+                new MilestoneBatchOperation("incomplete", 3L, null, null, null))));
+
+        verify(milestoneRepository, never()).completeSubtree(anyString());
+        verify(milestoneRepository, never()).markIncomplete(any());
+    }
+
+    @Test
+    void batchSharesOneRebuildAcrossSiblingsUnderTheSameParent() {
+        User user = new User();
+        user.setId(7L);
+        Milestone root = milestone(1L, null, user);
+        Milestone first = milestone(2L, root, user);
+        Milestone second = milestone(3L, root, user);
+        when(milestoneRepository.findAllById(Set.of(2L, 3L))).thenReturn(List.of(first, second));
+        when(milestoneRepository.findAncestorChain(2L)).thenReturn(List.of(
+                new Completion(2L, 1L, true, 1.0, "complete", 0, 0.0),
+                new Completion(1L, null, false, 0.0, "none", 2, 0.0)));
+        when(milestoneRepository.findAncestorChain(3L)).thenReturn(List.of(
+                new Completion(3L, 1L, false, 0.0, "incomplete", 0, 0.0),
+                new Completion(1L, null, false, 0.0, "none", 2, 0.0)));
+
+        milestoneService.applyBatch(user, List.of(
+                new MilestoneBatchOperation("complete", 2L, null, null, null),
+                new MilestoneBatchOperation("incomplete", 3L, null, null, null)));
+
+        // The parent is recomputed once from its stored children, not once per changed child
+        InOrder order = inOrder(milestoneRepository);
+        order.verify(milestoneRepository).recomputeCompletion(Set.of(2L, 3L));
+        order.verify(milestoneRepository).recomputeCompletion(Set.of(1L));
+    }
+
+    @Test
+    void deletingASubtreeMatchesItsPathPrefix() {
+        User user = new User();
+        user.setId(7L);
+        Milestone parent = milestone(1L, null, user);
+        Milestone child = milestone(2L, parent, user);
+        child.setCompletionRate(1.0);
+
+        milestoneService.deleteSubtree(child);
+
+        verify(milestoneRepository).deletePhotoTagsUnder("/1/2/");
+        verify(milestoneRepository).deleteSubtree("/1/2/");
+        verify(milestoneRepository).adjustChildAggregates(1L, -1, -1.0);
+        verify(milestoneRepository, never()).delete(any());
+    }
+
+    @Test
+    void deletingAMilestoneWithoutAPathFallsBackToTheEntity() {
+        User user = new User();
+        user.setId(7L);
+        Milestone parent = milestone(1L, null, user);
+        Milestone child = milestone(2L, parent, user);
+        child.setPath(null);
+        child.setCompletionRate(0.5);
+        parent.getSubMilestones().add(child);
+
+        milestoneService.deleteSubtree(child);
+
+        verify(milestoneRepository).delete(child);
+        verify(milestoneRepository, never()).deleteSubtree(any());
+        verify(milestoneRepository, never()).deletePhotoTagsUnder(any());
+        verify(milestoneRepository).adjustChildAggregates(1L, -1, -0.5);
+        assertTrue(parent.getSubMilestones().isEmpty());
+    }
+
+    @Test
+    void listingFetchesOneExtraRowAndTagsOnlyThePage() {
+        MilestoneQuery query = new MilestoneQuery(null, null, null, null, false, null);
+        when(milestoneRepository.findPageById(7L, false, null, null, null, null, 0L, Limit.of(3)))
+                .thenReturn(List.of(new Row(4L, null, false, 0.0), new Row(5L, null, false, 0.0),
+                        new Row(6L, null, false, 0.0)));
+        when(milestoneRepository.findPhotoTagsByMilestoneIds(List.of(4L, 5L))).thenReturn(List.of(new Tag(5L, 9L)));
+
+        CursorPage<MilestoneDto> page = milestoneService.listMilestones(7L, query, null, 2);
+
+        assertEquals(List.of(4L, 5L), page.items().stream().map(MilestoneDto::id).toList());
+        assertEquals(List.of(9L), page.items().get(1).taggedPhotoIds());
+        assertEquals(5L, page.nextCursor());
+    }
+
+    @Test
+    void dueDateListingResumesAfterTheCursorRowsDueDate() {
+        OffsetDateTime due = OffsetDateTime.parse("2026-01-01T00:00:00Z");
+        MilestoneQuery query = new MilestoneQuery(null, null, null, null, true, "dueDate");
+        when(milestoneRepository.findDueDateById(5L)).thenReturn(Optional.of(due));
+        when(milestoneRepository.findPageByDueDate(7L, true, null, null, null, null, 5L, due, Limit.of(51)))
+                .thenReturn(List.of(new Row(8L, null, false, 0.0)));
+
+        CursorPage<MilestoneDto> page = milestoneService.listMilestones(7L, query, 5L, null);
+
+        assertEquals(List.of(8L), page.items().stream().map(MilestoneDto::id).toList());
+        assertNull(page.nextCursor());
+    }
+}
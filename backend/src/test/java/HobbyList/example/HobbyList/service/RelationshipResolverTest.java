@@ -0,0 +1,76 @@
+package HobbyList.example.HobbyList.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import HobbyList.example.HobbyList.repository.FollowRequestRepository;
+
+@ExtendWith(MockitoExtension.class)
+class RelationshipResolverTest {
+
+    @Mock
+    private FollowGraphCache followGraphCache;
+
+    @Mock
+    private FollowRequestRepository followRequestRepository;
+
+    private RelationshipResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        resolver = new RelationshipResolver(followGraphCache, followRequestRepository);
+    }
+
+    @Test
+    void resolvesEveryCandidateWithOneRequestLookupForTheUnfollowed() {
+        List<Long> candidates = List.of(10L, 11L, 12L, 13L);
+        when(followGraphCache.followedAmong(1L, candidates)).thenReturn(Set.of(10L));
+        when(followRequestRepository.findPendingTargetsAmong(1L, List.of(11L, 12L, 13L))).thenReturn(List.of(12L));
+
+        Map<Long, String> relationships = resolver.resolve(1L, candidates);
+
+        assertEquals(Map.of(
+                10L, RelationshipResolver.FOLLOWING,
+                11L, RelationshipResolver.NONE,
+                12L, RelationshipResolver.REQUESTED,
+                13L, RelationshipResolver.NONE), relationships);
+        verify(followRequestRepository).findPendingTargetsAmong(1L, List.of(11L, 12L, 13L));
+    }
+
+    @Test
+    void skipsTheRequestLookupWhenEveryCandidateIsFollowed() {
+        List<Long> candidates = List.of(10L, 11L);
+        when(followGraphCache.followedAmong(1L, candidates)).thenReturn(Set.of(10L, 11L));
+
+        Map<Long, String> relationships = resolver.resolve(1L, candidates);
+
+        assertEquals(Map.of(10L, RelationshipResolver.FOLLOWING, 11L, RelationshipResolver.FOLLOWING), relationships);
+        verifyNoInteractions(followRequestRepository);
+    }
+
+    @Test
+    void emptyCandidateListTouchesNothing() {
+        assertEquals(Map.of(), resolver.resolve(1L, List.of()));
+        verifyNoInteractions(followGraphCache, followRequestRepository);
+    }
+
+    @Test
+    void resolvesASingleCandidate() {
+        when(followGraphCache.followedAmong(1L, List.of(20L))).thenReturn(Set.of());
+        when(followRequestRepository.findPendingTargetsAmong(1L, List.of(20L))).thenReturn(List.of(20L));
+
+        assertEquals(RelationshipResolver.REQUESTED, resolver.resolve(1L, 20L));
+    }
+}
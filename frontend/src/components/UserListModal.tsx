@@ -14,6 +14,8 @@ interface UserListModalProps {
 const UserListModal: React.FC<UserListModalProps> = ({ isOpen, onClose, title, type, userId }) => {
   const [users, setUsers] = useState<UserSummaryDto[]>([]);
   const [loading, setLoading] = useState(false);
+  const [loadingMore, setLoadingMore] = useState(false);
+  const [nextCursor, setNextCursor] = useState<number | null>(null);
 
   useEffect(() => {
     if (isOpen && userId) {
@@ -21,21 +23,22 @@ const UserListModal: React.FC<UserListModalProps> = ({ isOpen, onClose, title, t
     }
   }, [isOpen, userId, type]);
 
+  const fetchPage = (cursor?: number) =>
+    type === 'followers'
+      ? followService.getFollowers(userId, cursor)
+      : followService.getFollowing(userId, cursor);
+
   const fetchUsers = async () => {
     setLoading(true);
+    setUsers([]);
+    setNextCursor(null);
     try {
-      let data;
-      if (type === 'followers') {
-        data = await followService.getFollowers(userId);
-      } else {
-        data = await followService.getFollowing(userId);
-      }
-      
-      if (Array.isArray(data)) {
-        setUsers(data);
+      const page = await fetchPage();
+      if (Array.isArray(page?.items)) {
+        setUsers(page.items);
+        setNextCursor(page.nextCursor);
       } else {
-        console.warn("Unexpected data format:", data);
-        setUsers([]);
+        console.warn("Unexpected data format:", page);
       }
     } catch (error) {
       console.error("Failed to fetch users", error);
@@ -44,6 +47,21 @@ const UserListModal: React.FC<UserListModalProps> = ({ isOpen, onClose, title, t
     }
   };
 
+  // Appends the next page after the last one loaded
+  const loadMore = async () => {
+    if (nextCursor === null || loadingMore) return;
+    setLoadingMore(true);
+    try {
+      const page = await fetchPage(nextCursor);
+      setUsers((prev) => [...prev, ...page.items]);
+      setNextCursor(page.nextCursor);
+    } catch (error) {
+      console.error("Failed to fetch more users", error);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   if (!isOpen) return null;
 
   return (
@@ -82,6 +100,15 @@ const UserListModal: React.FC<UserListModalProps> = ({ isOpen, onClose, title, t
               {users.map((user) => (
                 <UserDiscoveryItem key={user.id} user={user} mode="none" onModalClose={onClose} />
               ))}
+              {nextCursor !== null && (
+                <button
+                  onClick={loadMore}
+                  disabled={loadingMore}
+                  className="w-full mt-2 py-2 text-sm font-medium text-[#b99547] hover:bg-gray-50 rounded-md disabled:opacity-50"
+                >
+                  {loadingMore ? 'Loading...' : 'Load more'}
+                </button>
+              )}
             </div>
           ) : (
             <p className="text-center text-gray-500 py-4">No users found.</p>
@@ -1,4 +1,5 @@
 import { api } from "./api";
+import { type CursorPage, type UserSummaryDto } from "../types";
 
 export const followService = {
     followUser: async (userId: number) => {
@@ -26,13 +27,14 @@ export const followService = {
         return response.data;
     },
 
-    getFollowers: async (userId: number) => {
-        const response = await api.get(`/users/${userId}/followers`);
+    // Followers/following are paged; pass the previous nextCursor to load more
+    getFollowers: async (userId: number, cursor?: number): Promise<CursorPage<UserSummaryDto>> => {
+        const response = await api.get(`/users/${userId}/followers`, { params: { cursor } });
         return response.data;
     },
 
-    getFollowing: async (userId: number) => {
-        const response = await api.get(`/users/${userId}/following`);
+    getFollowing: async (userId: number, cursor?: number): Promise<CursorPage<UserSummaryDto>> => {
+        const response = await api.get(`/users/${userId}/following`, { params: { cursor } });
         return response.data;
     },
 }
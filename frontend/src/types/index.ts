@@ -50,6 +50,12 @@ export interface UserSummaryDto {
   relationship: 'FOLLOWING' | 'REQUESTED' | 'NONE';
 }
 
+// One keyset page; nextCursor is null on the last page
+export interface CursorPage<T> {
+  items: T[];
+  nextCursor: number | null;
+}
+
 export interface AuthResponse {
   token: string;
   newAccount: boolean;